@@ -1,39 +1,269 @@
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
 /** An instance represents a Player that intelligently determines 
- *  Moves using the minimax algorithm. */
+ *  Moves using the minimax algorithm.
+ *  By default it builds a tree of States and computes minimax over it;
+ *  it can instead use the alpha-beta Search, which visits far fewer boards. */
 public class AI extends SynchronousPlayer {
 	/** This AI's turn. */
     private final Turn turn; // not null
 
     /** The depth of the search of the game space for minimax. */
     private final int depth; // greater than or equal to 1
+
+    /** The alpha-beta search used to find moves,
+     *  or null if this AI uses a tree of States instead. */
+    private final Search search;
+
+    /** The book of opening moves that are played without searching, or null if none. */
+    private final OpeningBook book;
+
+    /** The endgame tablebase whose moves are played without searching, or null if none. */
+    private final Tablebase tablebase;
+
+    /** The time that the search may spend on each move, in nanoseconds,
+     *  or 0 if the search always goes to depth instead. */
+    private final long timeLimit;
     
+    /** The greatest number of States to keep in the tree. */
+    private final int cap; // greater than or equal to 1
+
     /** The state of the board after this AI's last move.
      *  This will be initialized by the constructor (if AI is first)
      *  or by the first call of getMove (if AI is second). */
     private State state= null;
 
-    /** Constructor: an instance with Turn turn who searches to depth depth
-     * when searching the game space for moves.
-     * Throw an IllegalArgumentException of depth does not represent an integer >= 1. */
-    public AI(Turn turn, String depth) {
-    	super("AI-" + turn.getInitial() + "" + depth);
+    /** Whether this AI thinks on the opponent's time (see observeMove). */
+    private final boolean ponder;
+
+    /** The reply of the opponent that the search is pondering, or null if none. */
+    private Move expected;
+
+    /** The move that pondering found for the board after the opponent's reply,
+     *  to be played without searching, or null if there is none. */
+    private Move pondered;
+
+    /** The thread that the tree of States grows on during the opponent's turn
+     *  (null until it is first needed), the task growing it (null if none),
+     *  and whether that task has been told to stop. */
+    private ForkJoinPool ponderer;
+    private ForkJoinTask<?> growing;
+    private volatile boolean halted;
+
+    /** The counters of the work done by this AI in its game, which are also
+     *  added to those of the game (see startGame) or, until it starts, to the
+     *  global counters. */
+    private SearchStatistics statistics= new SearchStatistics(SearchStatistics.getGlobal());
+
+    /** Constructor: an instance with Turn turn configured by argument, which is either
+     *    - a depth, e.g. "6", to compute minimax over a tree of States to that depth,
+     *      optionally followed by ",cap:N" to keep at most N States (default 1048576)
+     *      in the tree; the tree then stops growing before a level that would not fit,
+     *      so the depth searched can be less than asked for (e.g. 7 rather than 8 from
+     *      the empty board with the default cap), though the moves from the current
+     *      board are always expanded, and by ",ponder:on" to grow the tree during
+     *      the opponent's turn, or
+     *    - options for an alpha-beta Search separated by commas, e.g. "ab:12,tt:64":
+     *        ab:DEPTH   search to depth DEPTH
+     *        time:TIME  search deeper and deeper for TIME per move, e.g. 250ms or 2s,
+     *                   but no deeper than DEPTH if ab is also given
+     *        tt:MB      use a transposition table of MB megabytes (default 16, 0 for none)
+     *        order:HEURISTICS  order moves by HEURISTICS, e.g. center+killer+history
+     *                   or none (default all); see MoveOrder
+     *        mode:MODE  search by MODE: ab, pvs, or mtdf (default ab); see Search.Mode
+     *        eval:NAME  value the boards at the depth of the search by NAME, lines
+     *                   or threats (default lines); see Evaluation
+     *        threads:N  search on N threads that share the table (default 1)
+     *        book:FILE  play the moves of the opening book in FILE (see OpeningBook)
+     *                   on the boards that it has, and search on the rest
+     *        tb:FILE    play perfectly, using the endgame tablebase in FILE (see Tablebase),
+     *                   once the game reaches a board with few enough empty
+     *                   locations that was reached from its root
+     *        ponder:on  during the opponent's turn, search the board after the reply
+     *                   that the search expects (default off; needs a table)
+     *      At least one of ab and time must be given.
+     * Throw an IllegalArgumentException if argument has neither form,
+     * its depth does not represent an integer >= 1, or an option is invalid. */
+    public AI(Turn turn, String argument) {
+    	super("AI-" + turn.getInitial() + "" + argument);
     	this.turn= turn;
+    	String[] args= argument.split(",");
+    	if (!args[0].contains(":")) {
+    		search= null;
+    		book= null;
+    		tablebase= null;
+    		depth= parseDepth(args[0]);
+    		timeLimit= 0;
+    		int cap= 1 << 20;
+    		boolean ponder= false;
+    		for (int i= 1; i < args.length; i++) {
+    			String[] option= splitOption(args[i]);
+    			if (option[0].equals("cap"))
+    				cap= parseInt(option[1], "cap", 1);
+    			else if (option[0].equals("ponder"))
+    				ponder= parseSwitch(option[1], "ponder");
+    			else
+    				throw new IllegalArgumentException("unknown AI option " + option[0]
+    						+ " for a tree of States");
+    		}
+    		this.cap= cap;
+    		this.ponder= ponder;
+    		return;
+    	}
+    	cap= 0;
+    	int depth= 0;
+    	long timeLimit= 0;
+    	int megabytes= 16;
+    	int heuristics= MoveOrder.ALL;
+    	int threads= 1;
+    	Evaluation evaluation= Evaluation.LINES;
+    	Search.Mode mode= Search.Mode.ALPHA_BETA;
+    	OpeningBook book= null;
+    	Tablebase tablebase= null;
+    	boolean ponder= false;
+    	for (String arg : args) {
+    		String[] option= splitOption(arg);
+    		switch (option[0]) {
+    		case "ab": depth= parseDepth(option[1]); break;
+    		case "time": timeLimit= parseTime(option[1]); break;
+    		case "tt": megabytes= parseInt(option[1], "tt", 0); break;
+    		case "order": heuristics= MoveOrder.parse(option[1]); break;
+    		case "threads": threads= parseInt(option[1], "threads", 1); break;
+    		case "eval": evaluation= Evaluation.parse(option[1]); break;
+    		case "mode": mode= Search.Mode.parse(option[1]); break;
+    		case "book": book= readBook(option[1]); break;
+    		case "tb": tablebase= readTablebase(option[1]); break;
+    		case "ponder": ponder= parseSwitch(option[1], "ponder"); break;
+    		default: throw new IllegalArgumentException("unknown AI option " + option[0]);
+    		}
+    	}
+    	if (depth == 0 && timeLimit == 0)
+    		throw new IllegalArgumentException("AI needs a depth (ab:DEPTH) or a time (time:TIME)");
+    	this.depth= depth == 0 ? Board.NUM_ROWS * Board.NUM_COLS : depth;
+    	this.timeLimit= timeLimit;
+    	this.book= book;
+    	this.tablebase= tablebase;
+    	if (ponder && megabytes == 0)
+    		throw new IllegalArgumentException("pondering needs a table, so tt must not be 0");
+    	this.ponder= ponder;
+    	search= new Search(megabytes == 0 ? null : new TranspositionTable(megabytes),
+    			new MoveOrder(heuristics), threads, evaluation, mode);
+    	search.setStatistics(statistics);
+    }
+
+    /** Return the name and value of option, which has the form NAME:VALUE.
+     *  Throw an IllegalArgumentException if option does not have that form. */
+    static String[] splitOption(String option) {
+    	String[] split= option.split(":", 2);
+    	if (split.length != 2)
+    		throw new IllegalArgumentException("AI option " + option + " must have the form NAME:VALUE");
+    	return split;
+    }
+
+    /** Return the number of nanoseconds represented by time, which is an integer
+     *  followed by ms (milliseconds) or s (seconds).
+     *  Throw an IllegalArgumentException if time does not represent a positive time. */
+    static long parseTime(String time) {
+    	if (time.endsWith("ms"))
+    		return parseInt(time.substring(0, time.length() - 2), "time", 1) * 1000000L;
+    	if (time.endsWith("s"))
+    		return parseInt(time.substring(0, time.length() - 1), "time", 1) * 1000000000L;
+    	throw new IllegalArgumentException("time must end with ms or s");
+    }
+
+    /** Return the integer represented by value, the value of option name.
+     * Throw an IllegalArgumentException if value does not represent an integer >= min. */
+    static int parseInt(String value, String name, int min) {
     	try {
-    		this.depth= Integer.parseInt(depth);
-        	if (this.depth < 1)
-        		throw new IllegalArgumentException("depth must be at least 1");
+    		int v= Integer.parseInt(value);
+    		if (v < min)
+    			throw new IllegalArgumentException(name + " must be at least " + min);
+    		return v;
     	} catch (NumberFormatException err) {
-    		throw new IllegalArgumentException("depth must be an integer");
+    		throw new IllegalArgumentException(name + " must be an integer");
     	}
     }
 
+    /** Return whether value, the value of option name, is "on" rather than "off".
+     * Throw an IllegalArgumentException if it is neither. */
+    private static boolean parseSwitch(String value, String name) {
+    	if (value.equals("on"))
+    		return true;
+    	if (value.equals("off"))
+    		return false;
+    	throw new IllegalArgumentException(name + " must be on or off");
+    }
+
+    /** Return the opening book in the file at path.
+     * Throw an IllegalArgumentException if it cannot be read. */
+    private static OpeningBook readBook(String path) {
+    	try {
+    		return new OpeningBook(path);
+    	} catch (IOException err) {
+    		throw new IllegalArgumentException("cannot read opening book: " + err.getMessage());
+    	}
+    }
+
+    /** Return the endgame tablebase in the file at path.
+     * Throw an IllegalArgumentException if it cannot be read. */
+    private static Tablebase readTablebase(String path) {
+    	try {
+    		return new Tablebase(path);
+    	} catch (IOException err) {
+    		throw new IllegalArgumentException("cannot read tablebase: " + err.getMessage());
+    	}
+    }
+
+    /** Return the depth represented by depth.
+     * Throw an IllegalArgumentException if depth does not represent an integer >= 1. */
+    private static int parseDepth(String depth) {
+    	return parseInt(depth, "depth", 1);
+    }
+
 	/** Return the AI's move for board recommend by minimax.
 	 *  Precondition: board is not null and has at least one possible move. */
     public @Override Move getMove(Board board) {
+    	return getMove(new MoveRequest(board));
+    }
+
+	/** Return the AI's move for the board of request recommended by minimax.
+	 *  A search stops at the deadline of request, if it is earlier than the
+	 *  AI's own, or once request is cancelled, and offers request the move
+	 *  of each depth that it finishes; it returns null if it is cancelled
+	 *  before it has a move. A tree of States is grown in full between moves,
+	 *  but the first tree stops growing before its next level when request
+	 *  is stopped.
+	 *  Precondition: the board of request has at least one possible move. */
+    protected @Override Move getMove(MoveRequest request) {
+    	Board board= request.getBoard();
+    	stopPondering();
+    	Move pondered= this.pondered;
+    	this.pondered= null;
+    	if (book != null) {
+    		Move move= book.getMove(board);
+    		if (move != null)
+    			return move;
+    	}
+    	if (tablebase != null) {
+    		Move move= tablebase.getMove(board);
+    		if (move != null)
+    			return move;
+    	}
+    	if (pondered != null)
+    		return pondered;
+    	if (search != null) {
+    		long deadline= request.getDeadline();
+    		if (timeLimit != 0)
+    			deadline= Math.min(deadline, System.nanoTime() + timeLimit);
+    		if (deadline == MoveRequest.NO_DEADLINE)
+    			return search.getBestMove(board, turn, depth, request);
+    		return search.getBestMoveUntil(board, turn, depth, deadline, request);
+    	}
     	if (state == null) {
     		state= new State(turn, board, turn);
-    		state.expandUpTo(depth);
-    		state.computeMinimax();
+    		grow(request);
     	}
     	// At this point, thanks to observeMove,
     	// the board in state is the same as the parameter board
@@ -41,22 +271,178 @@ public class AI extends SynchronousPlayer {
     	return state.getPreferredMove();
     }
 
-    /** Change the state to reflect the opponent's move. */
+	/** Forget any earlier game (see clear). Count the work of this AI in the
+	 *  game from now on in a new instance that adds everything to statistics,
+	 *  the counters of the game. */
+	public @Override void startGame(SearchStatistics statistics) {
+		clear();
+		this.statistics= new SearchStatistics(statistics);
+		if (search != null)
+			search.setStatistics(this.statistics);
+	}
+
+    /** Change the state to reflect the move, keeping the part of the tree
+     *  below the move and dropping the rest.
+     *  After the opponent's move, grow the tree for the AI's next move.
+     *  If this AI ponders, then after its own move it starts thinking on a
+     *  background thread until the opponent's move is observed:
+     *    - a search searches the board after the reply that it expects; if that
+     *      is the reply, the search finds what it learned in its table, or
+     *      even plays the move found if the pondering finished; if not,
+     *      the pondering is abandoned;
+     *    - a tree of States grows for every reply, one level deeper than it
+     *      needs, so the part of it below the reply is kept whatever it is. */
 	public @Override void observeMove(Board board, Turn player, Move move) {
+		if (search != null) {
+			if (player != turn) {
+				Move expected= this.expected;
+				Move found= stopPondering();
+				if (found != null && move.equals(expected))
+					pondered= found;
+			} else if (ponder)
+				startPondering(board);
+			return; // the search starts afresh from each board, apart from its table
+		}
+		stopPondering();
 		if (state == null)
 			state= new State(turn, board, turn);
 		else {
 			if (!state.isExpanded())
-				state.expandUpTo(1);
-			state= state.getChild(move);
+				expand(state, 1, Integer.MAX_VALUE);
+			state= state.getChild(move).reroot();
 		}
-		if (player != turn) {
-			state.expandUpTo(depth);
-			state.computeMinimax();
+		if (player != turn)
+			grow(null);
+		else if (ponder && board.hasConnectFour() == null && !board.isFull())
+			startGrowing(board);
+	}
+
+	/** Start the search pondering the board after the opponent's expected
+	 *  reply on board, if there is an expected reply and the game is not over. */
+	private void startPondering(Board board) {
+		if (board.hasConnectFour() != null || board.isFull())
+			return;
+		Move reply= search.getExpectedMove(board);
+		if (reply == null)
+			return;
+		Board next= new Board(board, turn.getNext(), reply);
+		if (next.hasConnectFour() != null || next.isFull())
+			return;
+		expected= reply;
+		search.startPondering(next, turn, depth);
+	}
+
+	/** Stop pondering or growing the tree, if this AI is doing so, and
+	 *  return the move found by pondering if it finished, or null. */
+	private Move stopPondering() {
+		if (expected != null) {
+			expected= null;
+			return search.stopPondering();
+		}
+		if (growing != null) {
+			halted= true;
+			growing.join();
+			growing= null;
 		}
+		return null;
+	}
+
+	/** Start growing the tree of state, on board with the opponent to move,
+	 *  on a background thread one level at a time up to depth + 1, so that
+	 *  the part of it below any reply reaches depth. Stop before a level that
+	 *  would make the tree larger than cap, or when halted. Each level is grown
+	 *  one reply at a time, so that halting does not wait for a whole level. */
+	private void startGrowing(Board board) {
+		if (ponderer == null)
+			ponderer= new ForkJoinPool(1);
+		halted= false;
+		Move[] replies= board.getPossibleMoves();
+		State state= this.state;
+		growing= ponderer.submit(() -> {
+			int size= state.size();
+			for (int d= 1; d <= depth + 1 && !halted; d++) {
+				int next= state.countExpansion(d);
+				if (next > cap - size)
+					return;
+				if (d == 1) {
+					size+= expand(state, 1, next);
+					continue;
+				}
+				int budget= next;
+				for (int i= 0; i < replies.length && !halted; i++)
+					budget-= expand(state.getChild(replies[i]), d - 1, budget);
+				size+= next - budget;
+			}
+		});
+	}
+
+	/** Expand the tree of state one level at a time up to depth,
+	 *  reusing the levels that are already there, and compute minimax.
+	 *  Stop before a level that would make the tree larger than cap,
+	 *  so that the deepest level is the one left out, and before the next
+	 *  level once request (null if none) is stopped. The first level is
+	 *  expanded whatever cap and request are, so that there is a move to prefer. */
+	private void grow(MoveRequest request) {
+		int size= state.size();
+		for (int d= 1; d <= depth; d++) {
+			int next= state.countExpansion(d);
+			if (d > 1 && (next > cap - size || request != null && request.isStopped()))
+				break;
+			size+= expand(state, d, next);
+		}
+		long start= System.nanoTime();
+		state.computeMinimax();
+		statistics.recordMinimax(size, System.nanoTime() - start);
+	}
+
+	/** Expand state up to depth as state.expandUpTo(depth, budget) does,
+	 *  count the States created and the time taken, and return the number
+	 *  of States created. */
+	private int expand(State state, int depth, int budget) {
+		long start= System.nanoTime();
+		int created= state.expandUpTo(depth, budget);
+		statistics.recordExpansion(created, System.nanoTime() - start);
+		return created;
 	}
 	
-	/** Return the current state.
+	/** Forget the earlier moves: the tree of States, or what the search
+	 *  learned in them, so that the next move is found from scratch. */
+	public void clear() {
+		stopPondering();
+		pondered= null;
+		state= null;
+		if (search != null)
+			search.clear();
+	}
+
+	/** Return the analysis of board by this AI's search (see Search.analyze),
+	 *  with the depth and time of its moves and the principal variations of
+	 *  the best lines moves, for the player to move on board.
+	 *  Throw an IllegalStateException if this AI uses a tree of States.
+	 *  Precondition: board has at least one possible move and lines >= 1. */
+	public Analysis analyze(Board board, int lines) {
+		if (search == null)
+			throw new IllegalStateException("only an AI with a search can analyze boards");
+		stopPondering();
+		pondered= null;
+		Turn player= board.getPlayerToMove();
+		return search.analyze(board, player, depth,
+				timeLimit == 0 ? MoveRequest.NO_DEADLINE : System.nanoTime() + timeLimit, lines);
+	}
+
+	/** Return the counters of the work done by this AI in its game so far
+	 *  (or, before a game starts, since it was created). */
+	public SearchStatistics getStatistics() {
+		return statistics;
+	}
+
+	/** Indicate whether this AI searches with a tree of States,
+	 *  so that getCurrentState can be logged. */
+	public boolean hasStates() {
+		return search == null;
+	}
+
+	/** Return the current state, or null if this AI does not have States.
 	 *  This exists solely for the StateLogger, which logs states
 	 *  and their full minimax trees. */
 	public State getCurrentState() {
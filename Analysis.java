@@ -0,0 +1,180 @@
+import java.util.Collections;
+import java.util.List;
+
+/** An instance is the result of analyzing a board with a Search (see
+ *  Search.analyze): a score for every possible move, the principal variation
+ *  (the moves that the search expects both players to play) of each of the
+ *  best few moves, and how much searching it took to find them.
+ *  Scores are for the player to move on the board, as Search values are:
+ *  a proven win or loss is Search.WIN or -Search.WIN moved towards 0 by
+ *  the number of moves until it happens (see formatScore).
+ *  An analysis is immutable. */
+public class Analysis {
+	private final Board board; // the board analyzed
+	private final Turn player; // the player to move on board
+	private final int depth; // the depth of the deepest search that finished
+	private final long nodes; // the number of boards visited
+	private final long elapsed; // the time taken, in nanoseconds
+	private final int[] scores; // scores[c] is the score of column c, or Integer.MIN_VALUE
+	private final boolean[] exact; // exact[c] is false if scores[c] is only an upper bound
+	private final List<List<Move>> lines; // the principal variations, best first
+
+	/** Constructor: the analysis of board for player, whose search went to
+	 *  depth depth and visited nodes boards in elapsed nanoseconds, with
+	 *  scores, exact, and lines as described by getScore, isExact, and getLine.
+	 *  The arrays and lists are not copied, so they must not be changed. */
+	Analysis(Board board, Turn player, int depth, long nodes, long elapsed,
+			int[] scores, boolean[] exact, List<List<Move>> lines) {
+		this.board= board;
+		this.player= player;
+		this.depth= depth;
+		this.nodes= nodes;
+		this.elapsed= elapsed;
+		this.scores= scores;
+		this.exact= exact;
+		this.lines= lines;
+	}
+
+	/** Return the board that was analyzed. */
+	public Board getBoard() {
+		return board;
+	}
+
+	/** Return the player to move on the board, for whom the scores are given. */
+	public Turn getPlayer() {
+		return player;
+	}
+
+	/** Return the depth of the deepest search that finished. */
+	public int getDepth() {
+		return depth;
+	}
+
+	/** Return the number of boards visited by the analysis. */
+	public long getNodeCount() {
+		return nodes;
+	}
+
+	/** Return the time that the analysis took, in nanoseconds. */
+	public long getElapsedTime() {
+		return elapsed;
+	}
+
+	/** Return the number of boards visited per second. */
+	public long getNodesPerSecond() {
+		return elapsed == 0 ? 0 : (long)(nodes * 1e9 / elapsed);
+	}
+
+	/** Return the score of putting a chip in column column,
+	 *  or Integer.MIN_VALUE if that column is full. */
+	public int getScore(int column) {
+		return scores[column];
+	}
+
+	/** Indicate whether getScore(column) is the exact score of the move, rather
+	 *  than an upper bound on it. Only the moves that might be among the best
+	 *  getLineCount() are searched for exact scores. */
+	public boolean isExact(int column) {
+		return exact[column];
+	}
+
+	/** Return the best move. */
+	public Move getBestMove() {
+		return lines.get(0).get(0);
+	}
+
+	/** Return the principal variation of the best move. */
+	public List<Move> getPrincipalVariation() {
+		return getLine(0);
+	}
+
+	/** Return the number of principal variations, which is the number of
+	 *  lines asked for or the number of possible moves, whichever is smaller. */
+	public int getLineCount() {
+		return lines.size();
+	}
+
+	/** Return the principal variation of the i-th best move, starting
+	 *  with that move: the moves that the search expects, as far as its
+	 *  table remembers them. Precondition: 0 <= i < getLineCount(). */
+	public List<Move> getLine(int i) {
+		return Collections.unmodifiableList(lines.get(i));
+	}
+
+	/** Return score as a string: a number for an estimate, or "win in N"
+	 *  or "loss in N" for a proven outcome, with N the number of moves
+	 *  (of both players) up to and including the chip that wins. */
+	public static String formatScore(int score) {
+		if (score >= Search.WIN - Board.NUM_ROWS * Board.NUM_COLS)
+			return "win in " + (Search.WIN - score);
+		if (score <= -Search.WIN + Board.NUM_ROWS * Board.NUM_COLS)
+			return "loss in " + (Search.WIN + score);
+		return (score > 0 ? "+" : "") + score;
+	}
+
+	/** Return a String representation of this analysis: the principal
+	 *  variations, the score of every move, and the search statistics. */
+	public @Override String toString() {
+		StringBuilder s= new StringBuilder();
+		for (int i= 0; i < lines.size(); i++) {
+			List<Move> line= lines.get(i);
+			s.append(i + 1).append(". ").append(formatScore(scores[line.get(0).getColumn()])).append(':');
+			for (Move move : line)
+				s.append(' ').append(move.getColumn());
+			s.append('\n');
+		}
+		s.append("scores:");
+		for (int c= 0; c < scores.length; c++)
+			if (scores[c] != Integer.MIN_VALUE)
+				s.append(' ').append(c).append('=').append(exact[c] ? "" : "<=").append(formatScore(scores[c]));
+		s.append('\n');
+		s.append("depth ").append(depth).append(", ").append(nodes).append(" nodes in ")
+				.append(elapsed / 1000000).append("ms (").append(getNodesPerSecond()).append(" nodes/s)");
+		return s.toString();
+	}
+
+	/** Print the analysis of a board.
+	 *  Arguments are BOARD [OPTIONS...]; see the usage message. */
+	public static void main(String[] args) {
+		if (args.length < 1) {
+			System.out.println("Format is BOARD [depth:N] [time:TIME] [lines:K] [tt:MB] [threads:N] [eval:NAME] [mode:MODE]");
+			System.out.println("Prints the score of every move on BOARD, the columns (0 to 6) of the moves");
+			System.out.println("from the empty board, e.g. 3323, or - for the empty board, and the principal");
+			System.out.println("variations of the best K moves (default 1). The search deepens to N moves");
+			System.out.println("(default 12, or as deep as it can if TIME is given) for at most TIME,");
+			System.out.println("e.g. 2s, using a table of MB megabytes (default 64) and N threads (default 1).");
+			System.out.println("eval and mode are as for the AI player.");
+			return;
+		}
+		Board board= args[0].equals("-") ? new Board() : Board.fromMoves(args[0], "BOARD");
+		if (board.hasConnectFour() != null || board.isFull())
+			throw new IllegalArgumentException("the game is over on BOARD");
+		int depth= 0;
+		long time= 0;
+		int lines= 1;
+		int megabytes= 64;
+		int threads= 1;
+		Evaluation evaluation= Evaluation.LINES;
+		Search.Mode mode= Search.Mode.ALPHA_BETA;
+		for (int i= 1; i < args.length; i++) {
+			String[] option= AI.splitOption(args[i]);
+			switch (option[0]) {
+			case "depth": depth= AI.parseInt(option[1], "depth", 1); break;
+			case "time": time= AI.parseTime(option[1]); break;
+			case "lines": lines= AI.parseInt(option[1], "lines", 1); break;
+			case "tt": megabytes= AI.parseInt(option[1], "tt", 1); break;
+			case "threads": threads= AI.parseInt(option[1], "threads", 1); break;
+			case "eval": evaluation= Evaluation.parse(option[1]); break;
+			case "mode": mode= Search.Mode.parse(option[1]); break;
+			default: throw new IllegalArgumentException("unknown option " + option[0]);
+			}
+		}
+		if (depth == 0)
+			depth= time == 0 ? 12 : Board.NUM_ROWS * Board.NUM_COLS;
+		Search search= new Search(new TranspositionTable(megabytes),
+				new MoveOrder(MoveOrder.ALL), threads, evaluation, mode);
+		Turn player= board.getPlayerToMove();
+		System.out.println(search.analyze(board, player, depth,
+				time == 0 ? MoveRequest.NO_DEADLINE : System.nanoTime() + time, lines));
+	}
+}
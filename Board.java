@@ -11,53 +11,180 @@ public class Board {
     /** The number of columns on a Connect Four board. */
     public static final int NUM_COLS= 7;
 
-    /** The grid of pieces.
-     *  grid[col][row] is the chip at column col and Row row.
-     *  Rows are 0-indexed starting at the top.
-     *  Columns are 0-indexed starting at the left.
-     *  A null value indicates an empty location. */
-    private final Turn[][] grid;
+    /** The number of bits used for each column of a bitboard:
+     *  one per row plus an always-empty sentinel bit above the top row,
+     *  so that shifting a line of chips never wraps into the next column. */
+    static final int COLUMN_BITS= NUM_ROWS + 1;
+
+    /** The bitboard of all locations in column 0. */
+    static final long COLUMN_MASK= (1L << NUM_ROWS) - 1;
+
+    /** The bitboard of the bottom location of every column. */
+    static final long BOTTOM_MASK;
+
+    /** The bitboard of all locations on the board. */
+    static final long FULL_MASK;
+    static {
+    	long bottom= 0;
+    	for (int c= 0; c < NUM_COLS; c++)
+    		bottom|= 1L << (c * COLUMN_BITS);
+    	BOTTOM_MASK= bottom;
+    	FULL_MASK= bottom * COLUMN_MASK;
+    }
+
+    /** The columns from the center outwards, the left one first of each pair,
+     *  which is the order in which searches try moves. Do not change it. */
+    static final int[] CENTER_ORDER= new int[NUM_COLS];
+    static {
+    	for (int i= 0; i < NUM_COLS; i++)
+    		CENTER_ORDER[i]= NUM_COLS / 2 + (i % 2 == 0 ? i / 2 : -(i + 1) / 2);
+    }
+
+    /** The distances between neighboring bits in each of the four directions
+     *  of a four-in-a-row: vertical, horizontal, rising to the right,
+     *  and falling to the right. */
+    private static final int[] DIRECTIONS= {1, COLUMN_BITS, COLUMN_BITS + 1, COLUMN_BITS - 1};
+
+    /** The random numbers used for Zobrist hashing: ZOBRIST[t][i] is combined
+     *  into the key of a board whenever the Turn with ordinal t has a chip at
+     *  bit index i. The seed is fixed so that keys are the same in every run. */
+    private static final long[][] ZOBRIST= new long[Turn.values().length][NUM_COLS * COLUMN_BITS];
+    static {
+    	java.util.Random random= new java.util.Random(0x2110C4L);
+    	for (long[] keys : ZOBRIST)
+    		for (int i= 0; i < keys.length; i++)
+    			keys[i]= random.nextLong();
+    }
+
+    /** LINE_COUNTS[i] is the number of four-in-a-rows that contain the
+     *  location at bit index i of a bitboard. */
+    private static final int[] LINE_COUNTS= new int[NUM_COLS * COLUMN_BITS];
+    static {
+    	for (List<? extends Location> fourinarow : Location.fourinarows)
+    		for (Location loc : fourinarow)
+    			LINE_COUNTS[loc.column * COLUMN_BITS + NUM_ROWS - 1 - loc.row]++;
+    }
+
+    /** The pieces are stored as one bitboard per player.
+     *  The chip at column col and height h (0 being the bottom row) is bit
+     *  col*COLUMN_BITS + h, so the chip at row r is at height NUM_ROWS-1-r.
+     *  first and second never have a bit in common. */
+    private final long first; // the chips of Turn.FIRST
+    private final long second; // the chips of Turn.SECOND
+
+    /** The number of chips in each column, packed into 3 bits per column
+     *  with column 0 in the lowest bits. */
+    private final int heights;
+
+    /** The player that has four in a row, or null if no player does. */
+    private final Turn winner;
+
+    /** Indicates whether every location on this board is occupied. */
+    private final boolean full;
+
+    /** The Zobrist key of this board: the exclusive or of ZOBRIST[t][i]
+     *  for every chip on the board. */
+    private final long key;
+
+    /** The value of this board for Turn.FIRST as given by getLineScore. */
+    private final int score;
 
     /** Constructor: an empty Board. */
     public Board() {
-        grid= new Turn[NUM_COLS][NUM_ROWS];
+        first= 0;
+        second= 0;
+        heights= 0;
+        key= 0;
+        score= 0;
+        winner= null;
+        full= false;
+    }
+
+    /** Constructor: the board with the chips in bitboards first and second.
+     *  Precondition: first and second are disjoint, contain no sentinel bits,
+     *  and every chip is directly above another chip or on the bottom row. */
+    Board(long first, long second) {
+    	this.first= first;
+    	this.second= second;
+    	long mask= first | second;
+    	int heights= 0;
+    	for (int c= 0; c < NUM_COLS; c++)
+    		heights|= Long.bitCount(mask & COLUMN_MASK << (c * COLUMN_BITS)) << (3 * c);
+    	this.heights= heights;
+    	winner= hasFourInARow(first) ? Turn.FIRST : hasFourInARow(second) ? Turn.SECOND : null;
+    	full= mask == FULL_MASK;
+    	long key= 0;
+    	int score= 0;
+    	for (long chips= first; chips != 0; chips&= chips - 1) {
+    		key^= ZOBRIST[Turn.FIRST.ordinal()][Long.numberOfTrailingZeros(chips)];
+    		score+= LINE_COUNTS[Long.numberOfTrailingZeros(chips)];
+    	}
+    	for (long chips= second; chips != 0; chips&= chips - 1) {
+    		key^= ZOBRIST[Turn.SECOND.ordinal()][Long.numberOfTrailingZeros(chips)];
+    		score-= LINE_COUNTS[Long.numberOfTrailingZeros(chips)];
+    	}
+    	this.key= key;
+    	this.score= score;
     }
 
     /** Constructor: the board that would result from copying board
-     *  and than having player make the Move move*/
+     *  and than having player make the Move move.
+     *  Throw an IllegalArgumentException if move's column is full on board. */
     public Board(Board board, Turn player, Move move) {
     	int column= move.getColumn();
-    	grid= Arrays.copyOf(board.grid, NUM_COLS);
-    	grid[column]= Arrays.copyOf(grid[column], NUM_ROWS);
-        makeMove(player, move);
+    	int height= board.getHeight(column);
+    	if (height == NUM_ROWS)
+    		throw new IllegalArgumentException("Cannot place chip into full column");
+    	int index= column * COLUMN_BITS + height;
+    	first= player == Turn.FIRST ? board.first | 1L << index : board.first;
+    	second= player == Turn.SECOND ? board.second | 1L << index : board.second;
+    	heights= board.heights + (1 << (3 * column));
+    	key= board.key ^ ZOBRIST[player.ordinal()][index];
+    	score= board.score + (player == Turn.FIRST ? LINE_COUNTS[index] : -LINE_COUNTS[index]);
+    	// Only the lines through the new chip can have become four in a row.
+    	if (board.winner != null)
+    		winner= board.winner;
+    	else
+    		winner= completesFourInARow(getChips(player), index) ? player : null;
+    	full= (first | second) == FULL_MASK;
     }
 
     /** Return the chip at the specified row and column.
      * Precondition: row and column give a position on the board */
     public Turn getPlayer(int row, int column) {
         assert 0 <= row && row < NUM_ROWS && 0 <= column && column < NUM_COLS;
-        return grid[column][row];
+        long bit= 1L << (column * COLUMN_BITS + NUM_ROWS - 1 - row);
+        if ((first & bit) != 0)
+        	return Turn.FIRST;
+        if ((second & bit) != 0)
+        	return Turn.SECOND;
+        return null;
     }
     
+    /** Return the number of chips in column col. */
+    int getHeight(int col) {
+    	return (heights >>> (3 * col)) & 7;
+    }
+
+    /** Return the number of chips on this board. */
+    public int getChipCount() {
+    	return Long.bitCount(first | second);
+    }
+
+    /** Return the player whose turn it is on this board: Turn.FIRST if it
+     *  has an even number of chips and Turn.SECOND otherwise. */
+    public Turn getPlayerToMove() {
+    	return getChipCount() % 2 == 0 ? Turn.FIRST : Turn.SECOND;
+    }
+
     /** Indicate whether column col is full. */
     public boolean columnIsFull(int col) {
-    	return grid[col][0] != null;
+    	return getHeight(col) == NUM_ROWS;
     }
 
-    /** Apply Move move to this Board by placing a chip from move's
-     *  player into move's column on this Board. Throw an
-     *  IllegalArgumentException if move's column is full on this Board. */
-    private void makeMove(Turn player, Move move) {
-    	Turn[] column= grid[move.getColumn()];
-    	if (column[0] != null)
-    		throw new IllegalArgumentException("Cannot place chip into full column");
-    	
-    	for (int r= 0; r < NUM_ROWS; r++)
-    		if (column[r] != null) {
-    			column[r-1]= player;
-    			return;
-    		}
-    	column[NUM_ROWS-1]= player;
+    /** Return the bitboard of the chips of player. */
+    long getChips(Turn player) {
+    	return player == Turn.FIRST ? first : second;
     }
 
     /** Return an array of all moves that can possibly be made on this board.
@@ -70,31 +197,113 @@ public class Board {
      *  Note: the returned value will not be null.
      *  Note: the returned array will not contain any null values or duplicates. */
     public Move[] getPossibleMoves() {
-        //TODO: part 1 of A5
-        // Hint. Read the spec carefully. Study the class invariant.
-        //       All methods you have to call are in this class.
-    	if (isFull() == true)
-    		return new Move[0];
-    	else if(hasConnectFour() != null)
-    		return new Move[0];
-    	else{
-    		int count = 0;
-    		for (int k = 0; k < NUM_COLS; k++){
-    			if(columnIsFull(k) == false){
-    				count++;
-    			}
-    		}
-    		Move[] m = new Move[count];
-    		int index = 0;
-    		for (int l = 0; l < NUM_COLS; l++){
-    			if(columnIsFull(l) == false){
-    				m[index] = new Move(l);
-    				index ++;
-    			}
-    		}
-    		return m;
+    	int moves= getMoveMask();
+    	Move[] m= new Move[Integer.bitCount(moves)];
+    	int index= 0;
+    	for (; moves != 0; moves&= moves - 1)
+    		m[index++]= Move.of(Integer.numberOfTrailingZeros(moves));
+    	return m;
+    }
+
+    /** Return the columns that can possibly be played on this board as a bitset:
+     *  bit c is set if and only if a chip can be placed in column c.
+     *  As with getPossibleMoves, the result is 0 if the board has a winner or
+     *  is full. This lets callers enumerate moves without allocating, e.g.
+     *  for (int moves= getMoveMask(); moves != 0; moves&= moves - 1) and
+     *  Move.of(Integer.numberOfTrailingZeros(moves)). */
+    public int getMoveMask() {
+    	if (winner != null)
+    		return 0;
+    	int moves= 0;
+    	for (int c= 0; c < NUM_COLS; c++)
+    		if (getHeight(c) < NUM_ROWS)
+    			moves|= 1 << c;
+    	return moves;
+    }
+
+    /** Return the value of this board for player, which is how State
+     *  evaluates boards: the sum over all four-in-a-rows of the number of
+     *  player's chips in it minus the number of the opponent's chips in it.
+     *  Equivalently, every chip counts once for each four-in-a-row through it.
+     *  The value is kept up to date as each chip is placed, so this is cheap. */
+    public int getLineScore(Turn player) {
+    	return player == Turn.FIRST ? score : -score;
+    }
+
+    /** Return the 64-bit Zobrist key of this board.
+     *  Equal boards have equal keys. */
+    public long getKey() {
+    	return key;
+    }
+
+    /** Return a compact key that identifies this board among all boards.
+     *  The key uses 7 bits per column (column 0 in the lowest bits): the chips
+     *  of Turn.FIRST in their bitboard positions plus a 1 just above the top
+     *  chip of the column. It is less than 2^49, and boards are equal if and
+     *  only if their position keys are equal. fromPositionKey decodes it. */
+    public long getPositionKey() {
+    	return first + (first | second) + BOTTOM_MASK;
+    }
+
+    /** Return the board with position key key.
+     *  Precondition: key is the position key of some board. */
+    public static Board fromPositionKey(long key) {
+    	long mask= 0;
+    	for (int c= 0; c < NUM_COLS; c++) {
+    		long column= key >>> (c * COLUMN_BITS) & (COLUMN_MASK << 1 | 1);
+    		// the chips are the bits below the highest bit of the column
+    		mask|= (Long.highestOneBit(column) - 1) << (c * COLUMN_BITS);
     	}
+    	long first= key & mask;
+    	return new Board(first, mask ^ first);
+    }
+
+    /** Return the board reached from the empty board by the moves in moves,
+     *  the columns (0 to 6) of the chips in the order they were placed, e.g.
+     *  "3323", with the players taking turns. Throw an IllegalArgumentException
+     *  saying that name must be a sequence of possible moves if one is not. */
+    public static Board fromMoves(String moves, String name) {
+    	Board board= new Board();
+    	for (char c : moves.toCharArray()) {
+    		if (c < '0' || c >= '0' + NUM_COLS || board.columnIsFull(c - '0') || board.hasConnectFour() != null)
+    			throw new IllegalArgumentException(name + " must be a sequence of possible moves");
+    		board= new Board(board, board.getPlayerToMove(), Move.of(c - '0'));
+    	}
+    	return board;
+    }
+
+    /** Return the position key of the left-right mirror image of the board
+     *  with position key key. */
+    public static long mirrorPositionKey(long key) {
+    	long mirror= 0;
+    	long column= COLUMN_MASK << 1 | 1;
+    	for (int c= 0; c < NUM_COLS; c++)
+    		mirror|= (key >>> (c * COLUMN_BITS) & column) << ((NUM_COLS - 1 - c) * COLUMN_BITS);
+    	return mirror;
+    }
+
+    /** Return the smaller of the position keys of this board and of its
+     *  left-right mirror image. A board and its mirror image have the same
+     *  canonical key, so a store of positions keyed by it holds each
+     *  symmetric pair only once. */
+    public long getCanonicalKey() {
+    	long key= getPositionKey();
+    	return Math.min(key, mirrorPositionKey(key));
+    }
+
+    /** Two boards are equal if they have the same chips in the same locations. */
+    public @Override boolean equals(Object that) {
+    	if (!(that instanceof Board))
+    		return false;
+    	Board board= (Board)that;
+    	return key == board.key && first == board.first && second == board.second;
     }
+
+    /** Hash the Zobrist key of this board. */
+    public @Override int hashCode() {
+    	return Long.hashCode(key);
+    }
+
     /** Return a representation of this board */
     public @Override String toString() {
         return toString("");
@@ -107,10 +316,11 @@ public class Board {
         for (int r= 0; r < NUM_ROWS; r++) {
             str+= indent + "|";
             for (int c= 0; c < NUM_COLS; c++) {
-                if (grid[c][r] == null)
+                Turn player= getPlayer(r, c);
+                if (player == null)
                     str+= ' ';
                 else
-                    str+= grid[c][r].getInitial();
+                    str+= player.getInitial();
                 str+= '|';
             }
             str+= "\n";
@@ -121,24 +331,72 @@ public class Board {
     /** Indicate whether the board is completely full.
      *  If so, then the game is over with tie. */
     public boolean isFull() {
-    	for (int c= 0; c < NUM_COLS; c++)
-    		if (!columnIsFull(c))
-    			return false;
-    	return true;
+    	return full;
     }
 
     /** Return the player that has four in a row, or null if no player does. */
     public Turn hasConnectFour() {
-        search: for (List<? extends Location> fourinarow : getFourInARows()) {
-        	Turn player= fourinarow.get(0).getPlayer(this);
-        	if (player == null)
-        		continue;
-        	for (Location loc : fourinarow)
-        		if (loc.getPlayer(this) != player)
-        			continue search;
-        	return player;
-        }
-        return null;
+    	return winner;
+    }
+
+    /** Indicate whether chips, a bitboard, contains four chips in a row.
+     *  Each shift pairs every chip with its neighbor in one direction, and
+     *  shifting the pairs again by twice as much finds four in a row. */
+    static boolean hasFourInARow(long chips) {
+    	for (int shift : DIRECTIONS) {
+    		long pairs= chips & (chips >>> shift);
+    		if ((pairs & (pairs >>> (2 * shift))) != 0)
+    			return true;
+    	}
+    	return false;
+    }
+
+    /** Indicate whether chips, a bitboard, has four chips in a row on a line
+     *  through the chip at bit index. Runs of chips stop at the sentinel bits,
+     *  so they never continue from one column into the next. */
+    static boolean completesFourInARow(long chips, int index) {
+    	for (int shift : DIRECTIONS) {
+    		int run= 1;
+    		for (int i= index + shift; i < Long.SIZE && (chips & 1L << i) != 0; i+= shift)
+    			run++;
+    		for (int i= index - shift; i >= 0 && (chips & 1L << i) != 0; i-= shift)
+    			run++;
+    		if (run >= 4)
+    			return true;
+    	}
+    	return false;
+    }
+
+    /** Return the empty locations, as a bitboard, that would complete four
+     *  in a row for the player with chips chips when the locations in mask
+     *  are occupied, whether or not a chip could be placed there yet. */
+    static long winningLocations(long chips, long mask) {
+    	long r= (chips << 1) & (chips << 2) & (chips << 3); // three chips below
+    	r|= winningLocations(chips, COLUMN_BITS); // horizontal
+    	r|= winningLocations(chips, COLUMN_BITS - 1); // diagonal, going down to the right
+    	r|= winningLocations(chips, COLUMN_BITS + 1); // diagonal, going up to the right
+    	return r & (FULL_MASK ^ mask);
+    }
+
+    /** Return the locations, as a bitboard, where a chip can be placed
+     *  when the locations in mask are occupied: the lowest empty one of
+     *  each column that is not full. */
+    static long playable(long mask) {
+    	return (mask + BOTTOM_MASK) & FULL_MASK;
+    }
+
+    /** Return the locations that would complete four in a row for the player
+     *  with chips chips along the direction given by shift, the bit distance
+     *  between neighbouring locations, whether they are empty or not.
+     *  The sentinel bits keep lines from wrapping from one column into the next. */
+    private static long winningLocations(long chips, int shift) {
+    	long p= (chips << shift) & (chips << 2 * shift);
+    	long r= p & (chips << 3 * shift);
+    	r|= p & (chips >>> shift);
+    	p= (chips >>> shift) & (chips >>> 2 * shift);
+    	r|= p & (chips << shift);
+    	r|= p & (chips >>> 3 * shift);
+    	return r;
     }
 
     /** Return all possible ways to have four chips in a row. */
@@ -160,12 +418,12 @@ public class Board {
     	
     	/** Indicates whether this location is occupied in board. */
     	public boolean isOccupied(Board board) {
-    		return board.grid[column][row] != null;
+    		return board.getPlayer(row, column) != null;
     	}
     	
     	/** Return the player at this location in board. */
     	public Turn getPlayer(Board board) {
-    		return board.grid[column][row];
+    		return board.getPlayer(row, column);
     	}
     	
     	/** Return a string representation of this location. */
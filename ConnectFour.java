@@ -5,9 +5,18 @@ import java.util.Arrays;
 public class ConnectFour {
  /** Run a Connect Four game using the specified user interface, players, and logging. */
  public static void main(String[] args) {
+  // Take the time limit for each move, if one is given first
+  long moveTimeLimit= 0;
+  if (args.length > 0 && args[0].startsWith("movetime:")) {
+   moveTimeLimit= AI.parseTime(args[0].substring(9));
+   args= Arrays.copyOfRange(args, 1, args.length);
+  }
+
   // Give usage instructions
   if (args.length < 5) {
-   System.out.println("Format is UI Player Argument Player Argument [Logger Arguments...]");
+   System.out.println("Format is [movetime:TIME] UI Player Argument Player Argument [Logger Arguments...]");
+   System.out.println("movetime:TIME gives each player at most TIME per move, e.g. 500ms or 2s;");
+   System.out.println("    a player that takes longer plays the best move it has found so far.");
    System.out.println("UI is the user interface you want to use. We provide for you");
    System.out.println("    Console - executes an interactive textual game on the console");
    System.out.println("    GUI     - executes an interactive graphic game in a window");
@@ -15,7 +24,18 @@ public class ConnectFour {
    System.out.println("    Random - picks a random possible move each time. The argument is the seed.");
    System.out.println("    Human  - has a human as the player. The argument is the human's name.");
    System.out.println("    AI     - has a minimax algorithm as the player. The argument is the depth.");
+   System.out.println("             The argument ab:DEPTH uses alpha-beta pruning instead,");
+   System.out.println("             time:250ms searches as deep as it can in 250ms per move,");
+   System.out.println("             and adding ,tt:MB sets the size of its transposition table.");
+   System.out.println("             Adding ,cap:N keeps at most N States (default 1048576) in the tree,");
+   System.out.println("             which can make it search less deep than the depth, e.g. AI 8 searches");
+   System.out.println("             7 moves deep from the empty board.");
+   System.out.println("             See the AI constructor for all of the options.");
    System.out.println("    File   - reads moves froom the lines of the file given by the argument.");
+   System.out.println("    Solver - plays perfectly by solving the game. The argument is the size of its table in MB.");
+   System.out.println("    MCTS   - plays out random games from the board and plays the move that did best.");
+   System.out.println("             The argument playouts:N makes N playouts per move, time:250ms plays out");
+   System.out.println("             for 250ms per move, and adding ,threads:N plays out on N threads.");
    System.out.println("Logger logs the events of the game. It is optional. We provide for you");
    System.out.println("    StateLogger - logs the states of the AI player specified by first argument");
    System.out.println("                  in the .txt file specified by the second argument");
@@ -46,6 +66,7 @@ public class ConnectFour {
    System.out.println("The first argument must be the name of a non-abstract class with a public nullary constructor");
    return;
   }
+  ui.setMoveTimeLimit(moveTimeLimit);
 
   // Set up the first player
   setupPlayer(ui, Turn.FIRST, "second", args[1], args[2]);
@@ -3,6 +3,8 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.PrintStream;
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
@@ -11,6 +13,9 @@ import java.util.function.Supplier;
 public class Console extends UI implements MultilinePrinter {
     private final BufferedReader input; // the input to read moves from
     private final PrintStream output; // the output to print progress to
+    private final Deque<String> lines= new ArrayDeque<String>(); // the lines read but not yet used
+    private Thread reader; // the thread reading input into lines, or null until needed; guarded by lines
+    private boolean ended; // true once input has ended; guarded by lines
 
     /** Constructor: an instance reading from and printing to the command line. */
     public Console() {
@@ -27,6 +32,14 @@ public class Console extends UI implements MultilinePrinter {
             return new SynchronousPlayer(argument) {
             /** Ask the human for a move on the console. */
             public @Override Move getMove(Board board) {
+                return getMove(new MoveRequest(board));
+            }
+
+            /** Ask the human for a move on the board of request on the console,
+             *  giving up and returning null if request is cancelled first.
+             *  If the input ends, no move can be made, so abort the game. */
+            protected @Override Move getMove(MoveRequest request) {
+                Board board= request.getBoard();
                 int column;
                 while (true) {
                     try {
@@ -37,7 +50,12 @@ public class Console extends UI implements MultilinePrinter {
                         for (int c= 0; c < Board.NUM_COLS; c++)
                             print(output, available[c] ? " " + c : "  ");
                         println(output, "\n\nWhat is " + getName() + "'s move?");
-                        String move= input.readLine();
+                        String move= readLine(request);
+                        if (move == null) {
+                            if (!request.isCancelled())
+                                abortGame();
+                            return null;
+                        }
                         column= Integer.parseInt(move);
                         if (column < 0 || column >= Board.NUM_COLS)
                             println(output, "Move must be an integer within 0 through " + Board.NUM_COLS);
@@ -45,18 +63,61 @@ public class Console extends UI implements MultilinePrinter {
                             println(output, "Move must be a column that is not full");
                         else
                             break;
-                    } catch (IOException err) {
-                        throw new RuntimeException(err);
                     } catch (NumberFormatException err) {
                         println(output, "Move must be an integer");
                     }
                 }
-                return new Move(column);
+                return Move.of(column);
             }
         };
         return super.createPlayer(turn, player, argument);
     }
 
+    /** Return the next line of input, waiting until it is typed, or null if
+     *  request is cancelled first or the input has ended. The input is read
+     *  on a thread of its own, so that a request that is given up on does not
+     *  take the line typed for the next one. */
+    private String readLine(MoveRequest request) {
+        synchronized (lines) {
+            if (reader == null) {
+                reader= new Thread(this::readInput, "Console input");
+                reader.setDaemon(true);
+                reader.start();
+            }
+            request.whenCancelled(() -> {
+                synchronized (lines) {
+                    lines.notifyAll();
+                }
+            });
+            try {
+                while (lines.isEmpty() && !ended && !request.isCancelled())
+                    lines.wait();
+            } catch (InterruptedException err) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            return request.isCancelled() ? null : lines.poll();
+        }
+    }
+
+    /** Read the lines of input into lines until it ends. */
+    private void readInput() {
+        try {
+            for (String line= input.readLine(); line != null; line= input.readLine())
+                synchronized (lines) {
+                    lines.add(line);
+                    lines.notifyAll();
+                }
+        } catch (IOException err) {
+            // input that cannot be read has ended as far as the game is concerned
+        } finally {
+            synchronized (lines) {
+                ended= true;
+                lines.notifyAll();
+            }
+        }
+    }
+
     /** Do long tasks immediately, since the console is single-threaded. */
     protected @Override <T> Async<T> doLongTask(Supplier<T> task) {
         return (Consumer<T> consumer) -> consumer.accept(task.get());
@@ -90,4 +151,10 @@ public class Console extends UI implements MultilinePrinter {
         else
             println(output, winner.getName() + " won the game!!!");
     }
+
+    /** Display that the game was aborted on the console. */
+    protected @Override void gameAborted() {
+        println(output);
+        println(output, "Game aborted.");
+    }
 }
@@ -0,0 +1,64 @@
+/** A way for a Search to value a board that it does not search any deeper.
+ *  The value is for the player to move: positive if the board is good for
+ *  that player, and far from Search.WIN, which only proven wins reach. */
+public enum Evaluation {
+	/** Count the chips of each player in every four-in-a-row (see Board.getLineScore). */
+	LINES {
+		public int evaluate(Board board, Turn player) {
+			return board.getLineScore(player);
+		}
+	},
+
+	/** Count four-in-a-rows as LINES does, and add the threats of each player:
+	 *  the empty locations that would complete four in a row for them.
+	 *  A threat is worth more on a row of the right parity for its player:
+	 *  the first player can force the use of threats on odd rows (counting
+	 *  1 from the bottom) and the second on even rows, because the columns
+	 *  fill up alternately. A threat that can be played at once decides
+	 *  the game, as do two that the opponent can play at once. */
+	THREATS {
+		public int evaluate(Board board, Turn player) {
+			long mine= board.getChips(player);
+			long theirs= board.getChips(player.getNext());
+			long mask= mine | theirs;
+			long playable= (mask + Board.BOTTOM_MASK) & Board.FULL_MASK;
+			long myThreats= Board.winningLocations(mine, mask);
+			long theirThreats= Board.winningLocations(theirs, mask);
+			if ((myThreats & playable) != 0)
+				return DECIDED; // the player wins with the next chip
+			long forced= theirThreats & playable;
+			if ((forced & (forced - 1)) != 0 || (forced << 1 & theirThreats) != 0)
+				return -DECIDED; // the player cannot block both threats
+			long myRows= player == Turn.FIRST ? ODD_ROWS : EVEN_ROWS;
+			return board.getLineScore(player)
+					+ THREAT * (Long.bitCount(myThreats) - Long.bitCount(theirThreats))
+					+ PARITY * (Long.bitCount(myThreats & myRows) - Long.bitCount(theirThreats & ~myRows));
+		}
+	};
+
+	/** The value of a board whose outcome is all but certain. */
+	private static final int DECIDED= 10000;
+
+	/** The value of a threat, and the extra value of a threat on a row of
+	 *  the right parity for its player. */
+	private static final int THREAT= 8;
+	private static final int PARITY= 12;
+
+	/** The locations on odd rows (1, 3, and 5 counting from the bottom),
+	 *  and those on even rows. */
+	private static final long ODD_ROWS= Board.BOTTOM_MASK * 0b010101;
+	private static final long EVEN_ROWS= Board.BOTTOM_MASK * 0b101010;
+
+	/** Return the value of board for player, the player to move on it. */
+	public abstract int evaluate(Board board, Turn player);
+
+	/** Return the evaluation named by name: "lines" or "threats".
+	 *  Throw an IllegalArgumentException if name is not recognized. */
+	public static Evaluation parse(String name) {
+		switch (name) {
+		case "lines": return LINES;
+		case "threats": return THREATS;
+		default: throw new IllegalArgumentException("unknown evaluation " + name);
+		}
+	}
+}
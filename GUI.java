@@ -4,6 +4,7 @@ import java.awt.GridLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
@@ -46,7 +47,7 @@ public class GUI extends UI {
 				                Object button= event.getSource();
 				                for (int c= 0; c < columnButtons.length; c++)
 				                    if (button == columnButtons[c]) {
-				                    	final Move move= new Move(c);
+				                    	final Move move= Move.of(c);
 				                    	java.awt.EventQueue.invokeLater(() -> {
 				                    		callback.accept(move);
 				                    	});
@@ -60,6 +61,17 @@ public class GUI extends UI {
 		                }
 					};
 				}
+
+				/** Wait for the human as getAsyncMove does, but turn the
+				 *  column buttons off if the UI gives up waiting. */
+				public @Override CompletableFuture<Move> requestMove(MoveRequest request) {
+					CompletableFuture<Move> move= super.requestMove(request);
+					move.whenComplete((Move m, Throwable err) -> {
+						if (move.isCancelled())
+							java.awt.EventQueue.invokeLater(() -> disableColumnButtons());
+					});
+					return move;
+				}
 			};
 		}
 		return super.createPlayer(turn, playerClass, argument);
@@ -113,6 +125,15 @@ public class GUI extends UI {
         return toolBar;
     }
 
+    /** Turn off the column buttons and stop them from making moves. */
+    private void disableColumnButtons() {
+    	for (JButton button : columnButtons) {
+    		button.setEnabled(false);
+    		for (ActionListener listener : button.getActionListeners())
+    			button.removeActionListener(listener);
+    	}
+    }
+
     /** Run long tasks on a separate thread to prevent the GUI from locking up. */
 	protected @Override <T> Async<T> doLongTask(final Supplier<T> task) {
 		return (Consumer<T> consumer) -> {
@@ -151,4 +172,9 @@ public class GUI extends UI {
         else
         	messageLabel.setText((winner.getName() + " won the game!!!"));
 	}
+
+	/** Change the lower message to say that the game was aborted. */
+	protected @Override void gameAborted() {
+		messageLabel.setText("Game aborted.");
+	}
 }
@@ -0,0 +1,251 @@
+import java.util.Arrays;
+
+/** An instance is a compact store for a tree of States of a game of Connect Four.
+ *  Rather than being objects, the states are nodes numbered from 0, and each
+ *  property of a node is kept in an array of primitives indexed by its number.
+ *  The children of a node are numbered consecutively in column order,
+ *  and the board of a node is kept as its position key (see Board.getPositionKey).
+ *  A node costs 22 bytes this way, and the tree is far friendlier to the CPU
+ *  cache than a tree of objects. State is a view of one node of a GameTree. */
+public class GameTree {
+	/** The number of nodes the arrays have room for when a tree is created. */
+	private static final int INITIAL_CAPACITY= 64;
+
+	private final Turn ai; // The AI's turn.
+
+	/* The properties of each node. Node 0 is the root. */
+	private int[] parent; // the parent of the node, or -1 for the root
+	private int[] firstChild; // the first child of the node, or -1 if it is not expanded
+	private byte[] childCount; // the number of children of the node
+	/** The column of the move that led to the node (the low 3 bits, unused
+	 *  for the root) and whether the AI is the player to move (bit 3). */
+	private byte[] move;
+	private int[] value; // how desirable the node is for the AI
+	private long[] boardKey; // the position key of the node's board
+
+	private int size; // the number of nodes in the tree; they are nodes 0..size-1
+
+	/** Constructor: a tree consisting of a root with board and player who will
+	 *  move next. ai indicates which turn is the AI's turn. */
+	public GameTree(Turn ai, Board board, Turn player) {
+		this.ai= ai;
+		allocate(INITIAL_CAPACITY);
+		size= 1;
+		parent[0]= -1;
+		firstChild[0]= -1;
+		move[0]= (byte)(player == ai ? 8 : 0);
+		boardKey[0]= board.getPositionKey();
+	}
+
+	/** Replace the arrays with empty ones with room for capacity nodes. */
+	private void allocate(int capacity) {
+		parent= new int[capacity];
+		firstChild= new int[capacity];
+		childCount= new byte[capacity];
+		move= new byte[capacity];
+		value= new int[capacity];
+		boardKey= new long[capacity];
+	}
+
+	/** Make the arrays large enough for size + extra nodes. */
+	private void reserve(int extra) {
+		if (size + extra <= parent.length)
+			return;
+		int capacity= Math.max(size + extra, 2 * parent.length);
+		parent= Arrays.copyOf(parent, capacity);
+		firstChild= Arrays.copyOf(firstChild, capacity);
+		childCount= Arrays.copyOf(childCount, capacity);
+		move= Arrays.copyOf(move, capacity);
+		value= Arrays.copyOf(value, capacity);
+		boardKey= Arrays.copyOf(boardKey, capacity);
+	}
+
+	/** Return the AI's turn. */
+	public Turn getAI() {
+		return ai;
+	}
+
+	/** Return the board of node. */
+	public Board getBoard(int node) {
+		return Board.fromPositionKey(boardKey[node]);
+	}
+
+	/** Return the player who will move next on the board of node. */
+	public Turn getPlayer(int node) {
+		return (move[node] & 8) != 0 ? ai : ai.getNext();
+	}
+
+	/** Return the parent of node, or -1 if node is the root. */
+	public int getParent(int node) {
+		return parent[node];
+	}
+
+	/** Return the value of node. */
+	public int getValue(int node) {
+		return value[node];
+	}
+
+	/** Indicate whether node has been expanded. */
+	public boolean isExpanded(int node) {
+		return firstChild[node] >= 0;
+	}
+
+	/** Return the number of children of node. */
+	public int getChildCount(int node) {
+		return childCount[node];
+	}
+
+	/** Return the i-th child of node, in column order.
+	 *  Precondition: node is expanded and 0 <= i < getChildCount(node). */
+	public int getChild(int node, int i) {
+		return firstChild[node] + i;
+	}
+
+	/** Return the child of node resulting from a move in column,
+	 *  or -1 if there is none. Precondition: node is expanded. */
+	public int getChildByColumn(int node, int column) {
+		for (int i= 0; i < childCount[node]; i++)
+			if ((move[firstChild[node] + i] & 7) == column)
+				return firstChild[node] + i;
+		return -1;
+	}
+
+	/** Return the column of the move that led to node.
+	 *  Precondition: node is not the root. */
+	public int getColumn(int node) {
+		return move[node] & 7;
+	}
+
+	/** Expand node up to depth as State.expandUpTo does, creating at most
+	 *  budget nodes, and return the number of nodes created.
+	 *  board is the board of node, passed in so that it need not be decoded.
+	 *  Precondition: depth >= 0 and budget >= 0. */
+	public int expandUpTo(int node, Board board, int depth, int budget) {
+		if (depth == 0)
+			return 0;
+		int created= 0;
+		Turn player= getPlayer(node);
+		if (firstChild[node] < 0) {
+			int moves= board.getMoveMask();
+			created= Integer.bitCount(moves);
+			if (created > budget)
+				return 0;
+			reserve(created);
+			firstChild[node]= size;
+			childCount[node]= (byte)created;
+			for (; moves != 0; moves&= moves - 1) {
+				int column= Integer.numberOfTrailingZeros(moves);
+				Board child= new Board(board, player, Move.of(column));
+				parent[size]= node;
+				firstChild[size]= -1;
+				childCount[size]= 0;
+				move[size]= (byte)(column | (player == ai ? 0 : 8));
+				value[size]= child.getLineScore(ai);
+				boardKey[size]= child.getPositionKey();
+				size++;
+			}
+		}
+		for (int i= 0; i < childCount[node]; i++) {
+			int child= firstChild[node] + i;
+			created+= expandUpTo(child, new Board(board, player, Move.of(getColumn(child))),
+					depth - 1, budget - created);
+		}
+		return created;
+	}
+
+	/** Return the number of nodes that expandUpTo(node, ..., depth, ...) would
+	 *  create, assuming that every descendant fewer than depth-1 moves below
+	 *  node has been expanded. Precondition: depth >= 0. */
+	public int countExpansion(int node, int depth) {
+		if (depth == 0)
+			return 0;
+		if (firstChild[node] < 0)
+			return Integer.bitCount(getBoard(node).getMoveMask());
+		int count= 0;
+		for (int i= 0; i < childCount[node]; i++)
+			count+= countExpansion(firstChild[node] + i, depth - 1);
+		return count;
+	}
+
+	/** Return the number of nodes in the subtree rooted at node. */
+	public int size(int node) {
+		int size= 1;
+		for (int i= 0; i < childCount[node]; i++)
+			size+= size(firstChild[node] + i);
+		return size;
+	}
+
+	/** Compute and store the value of node and its descendants
+	 *  as State.computeMinimax does. */
+	public void computeMinimax(int node) {
+		computeMinimax(node, getBoard(node));
+	}
+
+	/** Compute and store the value of node, whose board is board,
+	 *  and its descendants. */
+	private void computeMinimax(int node, Board board) {
+		Turn winner= board.hasConnectFour();
+		if (winner != null)
+			value[node]= winner == ai ? Integer.MAX_VALUE : Integer.MIN_VALUE;
+		else if (board.isFull())
+			value[node]= 0;
+		else if (firstChild[node] < 0)
+			value[node]= board.getLineScore(ai);
+		else {
+			Turn player= getPlayer(node);
+			boolean max= player == ai;
+			int v= max ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+			for (int i= 0; i < childCount[node]; i++) {
+				int child= firstChild[node] + i;
+				computeMinimax(child, new Board(board, player, Move.of(getColumn(child))));
+				v= max ? Math.max(v, value[child]) : Math.min(v, value[child]);
+			}
+			value[node]= v;
+		}
+	}
+
+	/** Return the column of the child of node that is preferred by node's player,
+	 *  the left-most one if several are equally preferred.
+	 *  Precondition: node is expanded and has at least one child. */
+	public int getPreferredColumn(int node) {
+		int preferred= firstChild[node];
+		for (int i= 1; i < childCount[node]; i++)
+			if (value[firstChild[node] + i] > value[preferred])
+				preferred= firstChild[node] + i;
+		return getColumn(preferred);
+	}
+
+	/** Make node the root of this tree, discarding every node that is not
+	 *  one of its descendants. The kept nodes are renumbered (node becomes 0),
+	 *  so node numbers from before, and States viewing them, are invalid.
+	 *  The arrays are compacted to fit the kept nodes. */
+	public void reroot(int node) {
+		int[] oldFirstChild= firstChild;
+		byte[] oldChildCount= childCount, oldMove= move;
+		int[] oldValue= value;
+		long[] oldBoardKey= boardKey;
+		int[] old= new int[size(node)]; // old[n] is the old number of new node n
+		allocate(Math.max(INITIAL_CAPACITY, old.length));
+		old[0]= node;
+		size= 1;
+		parent[0]= -1;
+		// Copy the nodes in breadth-first order, keeping children consecutive.
+		for (int n= 0; n < size; n++) {
+			int o= old[n];
+			move[n]= oldMove[o];
+			value[n]= oldValue[o];
+			boardKey[n]= oldBoardKey[o];
+			childCount[n]= oldChildCount[o];
+			if (oldFirstChild[o] < 0) {
+				firstChild[n]= -1;
+				continue;
+			}
+			firstChild[n]= size;
+			for (int i= 0; i < oldChildCount[o]; i++) {
+				old[size]= oldFirstChild[o] + i;
+				parent[size]= n;
+				size++;
+			}
+		}
+	}
+}
@@ -0,0 +1,312 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** An instance is a Player that finds its moves by Monte Carlo Tree Search:
+ *  rather than evaluating boards, it plays many games out to the end with
+ *  random moves (playouts) and plays the move whose games went best.
+ *  The playouts are guided by a tree of the boards seen so far, grown by one
+ *  board per playout. Each playout walks down the tree choosing, at every
+ *  board, the move with the greatest UCT bound (the average result of the
+ *  move plus a bonus that shrinks as the move is tried more often), so that
+ *  the moves that look best are tried most, but every move is tried now and
+ *  then. The move tried most often at the root is the one played.
+ *  The more playouts, the stronger the play, so its strength is set by a
+ *  number of playouts or by a time per move, and it grows with the threads.
+ *  The threads share one tree ("tree parallelism"). A thread that walks down
+ *  the tree counts its playout as lost at every board it passes until the
+ *  result is known (a "virtual loss"), so the other threads are steered to
+ *  different boards instead of all walking down the same line. */
+public class MCTS extends SynchronousPlayer {
+	/** The number of locations on a board. */
+	private static final int SIZE= Board.NUM_ROWS * Board.NUM_COLS;
+
+	/** The weight of the exploration bonus in the UCT bound. */
+	private static final double EXPLORATION= 1.0;
+
+	/** The greatest number of boards in the tree; once it is reached,
+	 *  the playouts go on from the leaves without growing it. */
+	private static final int MAX_NODES= 1 << 22;
+
+	/** The number of playouts between offers of the best move so far. */
+	private static final int OFFER_INTERVAL= 4096;
+
+	/** The results of a game for a player, counted in half points. */
+	private static final int LOSS= 0;
+	private static final int DRAW= 1;
+	private static final int WIN= 2;
+
+	/** The number of playouts per move, or 0 if there is no limit. */
+	private final long playouts;
+
+	/** The time per move, in nanoseconds, or 0 if there is no limit. */
+	private final long timeLimit;
+
+	/** The threads that search the tree besides the one that asks for
+	 *  the move (null if there are none). */
+	private final ForkJoinPool pool;
+	private final int threads; // greater than or equal to 1
+
+	/** The generator of the seeds of the playouts of each move. */
+	private final SplittableRandom seeds;
+
+	private long lastPlayouts; // the number of playouts made for the last move
+
+	/** Constructor: an instance with Turn turn configured by argument, options
+	 *  separated by commas, e.g. "playouts:100000" or "time:1s,threads:4":
+	 *      playouts:N  make N playouts per move
+	 *      time:TIME   make playouts for TIME per move, e.g. 250ms or 2s,
+	 *                  but no more than N if playouts is also given
+	 *      threads:N   make playouts on N threads that share the tree (default 1)
+	 *      seed:S      seed the random moves of the playouts with S (default 0);
+	 *                  with one thread and playouts, the moves depend only on it
+	 *  At least one of playouts and time must be given.
+	 *  Throw an IllegalArgumentException if an option is invalid. */
+	public MCTS(Turn turn, String argument) {
+		super("MCTS-" + turn.getInitial() + "" + argument);
+		long playouts= 0;
+		long timeLimit= 0;
+		int threads= 1;
+		long seed= 0;
+		for (String arg : argument.split(",")) {
+			String[] option= AI.splitOption(arg);
+			switch (option[0]) {
+			case "playouts": playouts= AI.parseInt(option[1], "playouts", 1); break;
+			case "time": timeLimit= AI.parseTime(option[1]); break;
+			case "threads": threads= AI.parseInt(option[1], "threads", 1); break;
+			case "seed": seed= AI.parseInt(option[1], "seed", Integer.MIN_VALUE); break;
+			default: throw new IllegalArgumentException("unknown MCTS option " + option[0]);
+			}
+		}
+		if (playouts == 0 && timeLimit == 0)
+			throw new IllegalArgumentException("MCTS needs a number of playouts (playouts:N) or a time (time:TIME)");
+		this.playouts= playouts;
+		this.timeLimit= timeLimit;
+		this.threads= threads;
+		pool= threads == 1 ? null : new ForkJoinPool(threads - 1);
+		seeds= new SplittableRandom(seed);
+	}
+
+	/** Return the move for board that was tried most by the playouts.
+	 *  Precondition: board is not null and has at least one possible move. */
+	public @Override Move getMove(Board board) {
+		return getMove(new MoveRequest(board));
+	}
+
+	/** Return the move for the board of request that was tried most by the
+	 *  playouts, stopping early at the deadline of request, if it is earlier
+	 *  than this player's own, or once request is cancelled. The move tried
+	 *  most so far is offered to request now and then.
+	 *  Precondition: the board of request has at least one possible move. */
+	protected @Override Move getMove(MoveRequest request) {
+		Board board= request.getBoard();
+		int moves= board.getChipCount();
+		Turn player= board.getPlayerToMove();
+		long current= board.getChips(player);
+		long mask= current | board.getChips(player.getNext());
+		long win= Board.winningLocations(current, mask) & Board.playable(mask);
+		if (win != 0) // no need to search for a win that can be played at once
+			return Move.of(Long.numberOfTrailingZeros(win) / Board.COLUMN_BITS);
+
+		long deadline= request.getDeadline();
+		if (timeLimit != 0)
+			deadline= Math.min(deadline, System.nanoTime() + timeLimit);
+		Tree tree= new Tree(current, mask, moves, deadline, request);
+		List<ForkJoinTask<?>> tasks= new ArrayList<ForkJoinTask<?>>();
+		for (int i= 1; i < threads; i++) {
+			SplittableRandom random= seeds.split();
+			tasks.add(pool.submit(() -> tree.run(random, false)));
+		}
+		tree.run(seeds.split(), true);
+		for (ForkJoinTask<?> task : tasks)
+			task.join();
+		lastPlayouts= tree.root.visits.get();
+		return Move.of(tree.getMostTried());
+	}
+
+	/** Return the number of playouts made for the last move. */
+	public long getPlayoutCount() {
+		return lastPlayouts;
+	}
+
+	/** A board in the tree of a search. */
+	private static class Node {
+		/** The result of the game, for the player who moved to this board,
+		 *  if the game is over on it, or -1 if it is not. */
+		final int result;
+
+		/** The boards after each move, indexed by column, each null until
+		 *  it is first tried. Guarded by this node. */
+		final Node[] children= new Node[Board.NUM_COLS];
+
+		/** The number of playouts through this board, including those under
+		 *  way, and the sum of their results for the player who moved to
+		 *  this board, in half points, excluding those under way. */
+		final AtomicInteger visits= new AtomicInteger();
+		final AtomicInteger reward= new AtomicInteger();
+
+		/** Constructor: a board whose game ends with result result
+		 *  (-1 if it does not end). */
+		Node(int result) {
+			this.result= result;
+		}
+	}
+
+	/** The tree of one search, shared by the threads that search it. */
+	private class Tree {
+		final Node root= new Node(-1);
+		final long current; // the chips of the player to move at the root
+		final long mask; // the chips of both players at the root
+		final int moves; // the number of chips at the root
+		final long deadline; // the System.nanoTime() to stop at, or MoveRequest.NO_DEADLINE
+		final MoveRequest request; // the request being searched for
+		final AtomicLong started= new AtomicLong(); // the number of playouts started
+		final AtomicInteger nodes= new AtomicInteger(1); // the number of boards in the tree
+
+		/** Constructor: an empty tree for request, whose board is given by
+		 *  current, mask, and moves, to be searched until deadline. */
+		Tree(long current, long mask, int moves, long deadline, MoveRequest request) {
+			this.current= current;
+			this.mask= mask;
+			this.moves= moves;
+			this.deadline= deadline;
+			this.request= request;
+		}
+
+		/** Make playouts with random moves from random until the search must stop.
+		 *  If offering, offer the request the move tried most now and then. */
+		void run(SplittableRandom random, boolean offering) {
+			List<Node> path= new ArrayList<Node>();
+			int count= 0;
+			while (playouts == 0 || started.getAndIncrement() < playouts) {
+				if (request.isCancelled() || deadline != MoveRequest.NO_DEADLINE
+						&& System.nanoTime() - deadline >= 0)
+					return;
+				playout(random, path);
+				if (offering && ++count % OFFER_INTERVAL == 0)
+					request.offer(Move.of(getMostTried()));
+			}
+		}
+
+		/** Make one playout: walk down the tree from the root by UCT, adding
+		 *  the first board reached that is not yet in it, play the game out
+		 *  at random from there, and add the result to every board on the way.
+		 *  path is used to remember the boards on the way. */
+		void playout(SplittableRandom random, List<Node> path) {
+			long current= this.current;
+			long mask= this.mask;
+			int moves= this.moves;
+			path.clear();
+			Node node= root;
+			node.visits.incrementAndGet();
+			path.add(node);
+			boolean added= false;
+			while (node.result < 0 && !added) {
+				int column;
+				Node child;
+				synchronized (node) {
+					column= select(node, mask);
+					child= node.children[column];
+					if (child == null) {
+						if (nodes.get() >= MAX_NODES)
+							break; // play out from node without growing the tree
+						long move= Board.playable(mask) & Board.COLUMN_MASK << (column * Board.COLUMN_BITS);
+						int result= (Board.winningLocations(current, mask) & move) != 0 ? WIN
+								: moves + 1 == SIZE ? DRAW : -1;
+						child= new Node(result);
+						node.children[column]= child;
+						nodes.incrementAndGet();
+						added= true;
+					}
+					child.visits.incrementAndGet(); // the virtual loss
+				}
+				long move= Board.playable(mask) & Board.COLUMN_MASK << (column * Board.COLUMN_BITS);
+				current^= mask;
+				mask|= move;
+				moves++;
+				node= child;
+				path.add(node);
+			}
+			// result is for the player who moved to the last node on the path
+			int result= node.result >= 0 ? node.result : WIN - MCTS.playout(random, current, mask, moves);
+			for (int i= path.size() - 1; i >= 0; i--) {
+				path.get(i).reward.addAndGet(result);
+				result= WIN - result;
+			}
+		}
+
+		/** Return the column of the move on the board of node, on which both
+		 *  players together have chips mask, with the greatest UCT bound:
+		 *  a move not yet tried if there is one, going through the columns
+		 *  in Board.CENTER_ORDER. Precondition: the caller holds the lock of node. */
+		int select(Node node, long mask) {
+			long possible= Board.playable(mask);
+			double log= Math.log(node.visits.get());
+			int best= -1;
+			double bestBound= Double.NEGATIVE_INFINITY;
+			for (int column : Board.CENTER_ORDER) {
+				if ((possible & Board.COLUMN_MASK << (column * Board.COLUMN_BITS)) == 0)
+					continue;
+				Node child= node.children[column];
+				if (child == null)
+					return column;
+				int visits= child.visits.get();
+				double bound= child.reward.get() / (2.0 * visits)
+						+ EXPLORATION * Math.sqrt(log / visits);
+				if (bound > bestBound) {
+					bestBound= bound;
+					best= column;
+				}
+			}
+			return best;
+		}
+
+		/** Return the column of the move at the root that was tried most,
+		 *  the better one on average if several were. */
+		int getMostTried() {
+			int best= -1;
+			long bestVisits= -1;
+			long bestReward= -1;
+			synchronized (root) {
+				for (int column= 0; column < Board.NUM_COLS; column++) {
+					Node child= root.children[column];
+					if (child == null)
+						continue;
+					long visits= child.visits.get();
+					long reward= child.reward.get();
+					if (visits > bestVisits || visits == bestVisits && reward > bestReward) {
+						best= column;
+						bestVisits= visits;
+						bestReward= reward;
+					}
+				}
+			}
+			if (best < 0) // no playout was made, so fall back on any possible move
+				best= Long.numberOfTrailingZeros(Board.playable(mask)) / Board.COLUMN_BITS;
+			return best;
+		}
+	}
+
+	/** Play the game out from the board on which the player to move has chips
+	 *  current, both players together have chips mask, and moves chips have
+	 *  been placed, with moves chosen by random, except that a player who
+	 *  can win with their next chip does. Return the result for the player
+	 *  to move on that board. */
+	private static int playout(SplittableRandom random, long current, long mask, int moves) {
+		for (int ply= 0; ; ply++, moves++) {
+			if (moves == SIZE)
+				return DRAW;
+			long possible= Board.playable(mask);
+			if ((Board.winningLocations(current, mask) & possible) != 0)
+				return ply % 2 == 0 ? WIN : LOSS;
+			for (int r= random.nextInt(Long.bitCount(possible)); r > 0; r--)
+				possible&= possible - 1;
+			current^= mask;
+			mask|= Long.lowestOneBit(possible);
+		}
+	}
+}
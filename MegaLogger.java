@@ -99,10 +99,13 @@ public class MegaLogger implements Logger, MultilinePrinter {
     }
 
     /** Record which player has which turns.
-     *  Throw an IllegalArgumentException if player is not an AI. */
+     *  Throw an IllegalArgumentException if player is not an AI with States. */
     public @Override void registerPlayer(Turn turn, Player player) {
         if (states.containsKey(turn) && !(player instanceof AI))
             throw new IllegalArgumentException("MegaLogger can only log the states of AI players");
+        if (states.containsKey(turn) && !((AI)player).hasStates())
+            throw new IllegalArgumentException(
+                    "MegaLogger can only log the states of AI players that search with States");
         players.put(turn, player);
     }
 
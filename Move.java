@@ -2,7 +2,23 @@
  *  is applied to a Board, this Move's player will place a piece in
  *  this Move's column of the Board. */
 public class Move implements Comparable<Move> {
-    private int column;     // in this column, which is within 0..Board.NUM_COLS-1
+    private final int column;     // in this column, which is within 0..Board.NUM_COLS-1
+
+    /** The shared instances returned by of, indexed by column. */
+    private static final Move[] MOVES= new Move[Board.NUM_COLS];
+    static {
+        for (int c= 0; c < Board.NUM_COLS; c++)
+            MOVES[c]= new Move(c);
+    }
+
+    /** Return the Move with column c. Moves are immutable, so unlike the
+     *  constructor this returns a shared instance and allocates nothing.
+     *  Throw an IllegalArgumentException if c is not in 0..Board.NUM_COLS-1. */
+    public static Move of(int column) {
+        if (column < 0 || Board.NUM_COLS <= column)
+            return new Move(column); // throws the IllegalArgumentException
+        return MOVES[column];
+    }
 
     /** Constructor: an instance with column c.
      *  Throw an IllegalArgumentException if c is not in 0..Board.NUM_COLS-1. */
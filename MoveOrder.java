@@ -0,0 +1,140 @@
+/** An instance decides the order in which a Search tries the moves of a board.
+ *  Alpha-beta prunes the most when the best move is searched first, so the
+ *  moves most likely to be best go first. Three heuristics can be combined:
+ *    - CENTER:  a chip in a central column is part of more four-in-a-rows,
+ *               so columns are tried from the center outwards;
+ *    - KILLER:  a move that made the opponent's move fail elsewhere at the same
+ *               depth of the search is likely to do so again, so the last two
+ *               such "killer" moves at each ply are tried early;
+ *    - HISTORY: moves that caused a cutoff anywhere in the search get credit
+ *               for the location they filled, and better-credited moves go first.
+ *  The best move remembered by the transposition table, if any, always goes first.
+ *  With no heuristics, moves are tried from left to right. */
+public class MoveOrder {
+	/** Try central columns before outer ones. */
+	public static final int CENTER= 1;
+	/** Try the killer moves of the ply early. */
+	public static final int KILLER= 2;
+	/** Try moves by the history of cutoffs they have caused. */
+	public static final int HISTORY= 4;
+	/** All of the heuristics. */
+	public static final int ALL= CENTER | KILLER | HISTORY;
+
+	/** The greatest number of moves in a game, and so the greatest ply. */
+	private static final int MAX_PLY= Board.NUM_ROWS * Board.NUM_COLS;
+
+	/** The history credits beyond which all credits are halved,
+	 *  keeping them below the priority of killer moves. */
+	private static final int HISTORY_LIMIT= 1 << 20;
+
+	private final int heuristics; // the heuristics in use: a combination of the flags above
+
+	/** killers[ply] holds the columns of the two most recent killer moves
+	 *  at ply, most recent first, or -1 where there is none. */
+	private final int[][] killers= new int[MAX_PLY + 1][2];
+
+	/** history[t][i] is the credit of the Turn with ordinal t for placing
+	 *  a chip at bit index i of a bitboard. */
+	private final int[][] history= new int[Turn.values().length][Board.NUM_COLS * Board.COLUMN_BITS];
+
+	private final int[] scores= new int[Board.NUM_COLS]; // scratch space for order
+
+	/** Constructor: an instance using heuristics, a combination of
+	 *  CENTER, KILLER, and HISTORY (0 for none). */
+	public MoveOrder(int heuristics) {
+		this.heuristics= heuristics;
+		clear();
+	}
+
+	/** Return the heuristics named by names: "all", "none", or names among
+	 *  "center", "killer", and "history" separated by +, e.g. "center+killer".
+	 *  Throw an IllegalArgumentException if a name is not recognized. */
+	public static int parse(String names) {
+		if (names.equals("all"))
+			return ALL;
+		if (names.equals("none"))
+			return 0;
+		int heuristics= 0;
+		for (String name : names.split("\\+"))
+			switch (name) {
+			case "center": heuristics|= CENTER; break;
+			case "killer": heuristics|= KILLER; break;
+			case "history": heuristics|= HISTORY; break;
+			default: throw new IllegalArgumentException("unknown move ordering " + name);
+			}
+		return heuristics;
+	}
+
+	/** Return the heuristics used by this instance. */
+	public int getHeuristics() {
+		return heuristics;
+	}
+
+	/** Store in columns the columns that player can play on board, best first,
+	 *  and return how many there are. board was reached ply moves into the
+	 *  search, and hashColumn is the column of the move remembered by the
+	 *  transposition table (-1 if none). */
+	public int order(Board board, Turn player, int ply, int hashColumn, int[] columns) {
+		int moves= board.getMoveMask();
+		int n= 0;
+		for (int i= 0; i < Board.NUM_COLS; i++) {
+			int column= (heuristics & CENTER) != 0 ? Board.CENTER_ORDER[i] : i;
+			if ((moves & 1 << column) == 0)
+				continue;
+			int score= 0;
+			if (column == hashColumn)
+				score= 3 << 28;
+			else if ((heuristics & KILLER) != 0 && column == killers[ply][0])
+				score= 2 << 28;
+			else if ((heuristics & KILLER) != 0 && column == killers[ply][1])
+				score= 1 << 28;
+			else if ((heuristics & HISTORY) != 0)
+				score= history[player.ordinal()][index(board, column)];
+			// insert column, keeping equal scores in their original order
+			int j= n++;
+			for (; j > 0 && scores[j - 1] < score; j--) {
+				scores[j]= scores[j - 1];
+				columns[j]= columns[j - 1];
+			}
+			scores[j]= score;
+			columns[j]= column;
+		}
+		return n;
+	}
+
+	/** Record that player's move in column on board, which was reached ply moves
+	 *  into the search and was being searched depth moves ahead, was so good
+	 *  that the rest of the moves on board did not need to be searched. */
+	public void cutoff(Board board, Turn player, int ply, int depth, int column) {
+		if (killers[ply][0] != column) {
+			killers[ply][1]= killers[ply][0];
+			killers[ply][0]= column;
+		}
+		int[] credits= history[player.ordinal()];
+		int i= index(board, column);
+		credits[i]+= depth * depth;
+		if (credits[i] >= HISTORY_LIMIT)
+			age();
+	}
+
+	/** Halve all history credits, so that recent cutoffs count for more
+	 *  than those from earlier searches. */
+	public void age() {
+		for (int[] credits : history)
+			for (int i= 0; i < credits.length; i++)
+				credits[i]>>= 1;
+	}
+
+	/** Forget all killer moves and history credits. */
+	public void clear() {
+		for (int[] killer : killers)
+			java.util.Arrays.fill(killer, -1);
+		for (int[] credits : history)
+			java.util.Arrays.fill(credits, 0);
+	}
+
+	/** Return the bit index of the location that a chip in column on board fills. */
+	private static int index(Board board, int column) {
+		return column * Board.COLUMN_BITS + board.getHeight(column);
+	}
+}
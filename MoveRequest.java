@@ -0,0 +1,102 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/** An instance is a request to a Player for its move on a board
+ *  (see Player.requestMove). A request can have a deadline, by which the
+ *  player should answer, and can be cancelled, after which the player should
+ *  stop thinking. While thinking, the player can offer the best move it has
+ *  found so far, which is played if it does not answer in time.
+ *  The methods of a request may be called on any thread. */
+public class MoveRequest {
+	/** The deadline of a request that has none. */
+	public static final long NO_DEADLINE= Long.MAX_VALUE;
+
+	private final Board board; // the board to move on
+	private final long deadline; // the System.nanoTime() to answer by, or NO_DEADLINE
+	private volatile boolean cancelled; // true once the request has been cancelled
+	private volatile Move bestSoFar; // the best move offered so far, or null if none
+	private final List<Runnable> cancelActions= new ArrayList<Runnable>(); // see whenCancelled; guarded by this
+
+	/** Constructor: a request for a move on board with no deadline. */
+	public MoveRequest(Board board) {
+		this(board, NO_DEADLINE);
+	}
+
+	/** Constructor: a request for a move on board to be answered before
+	 *  System.nanoTime() reaches deadline (NO_DEADLINE for none).
+	 *  Throw an IllegalArgumentException if board is null. */
+	public MoveRequest(Board board, long deadline) {
+		if (board == null)
+			throw new IllegalArgumentException("a move request needs a board");
+		this.board= board;
+		this.deadline= deadline;
+	}
+
+	/** Return the board that the move is requested for. */
+	public Board getBoard() {
+		return board;
+	}
+
+	/** Return the System.nanoTime() by which the move should be found,
+	 *  or NO_DEADLINE if there is no deadline. */
+	public long getDeadline() {
+		return deadline;
+	}
+
+	/** Return the number of nanoseconds left before the deadline (0 if it
+	 *  has passed), or Long.MAX_VALUE if there is no deadline. */
+	public long getTimeLeft() {
+		if (deadline == NO_DEADLINE)
+			return Long.MAX_VALUE;
+		return Math.max(0, deadline - System.nanoTime());
+	}
+
+	/** Cancel this request: the player should stop thinking and answer with
+	 *  its best move so far, if it still answers at all. */
+	public void cancel() {
+		List<Runnable> actions;
+		synchronized (this) {
+			if (cancelled)
+				return;
+			cancelled= true;
+			actions= new ArrayList<Runnable>(cancelActions);
+			cancelActions.clear();
+		}
+		for (Runnable action : actions)
+			action.run();
+	}
+
+	/** Run action once this request is cancelled, on the thread that cancels
+	 *  it, or at once if it has been cancelled already. This lets a player
+	 *  that waits for something else wake up when it should stop waiting. */
+	public void whenCancelled(Runnable action) {
+		synchronized (this) {
+			if (!cancelled) {
+				cancelActions.add(action);
+				return;
+			}
+		}
+		action.run();
+	}
+
+	/** Indicate whether this request has been cancelled. */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/** Indicate whether the player should stop thinking: this request
+	 *  has been cancelled or its deadline has passed. */
+	public boolean isStopped() {
+		return cancelled || deadline != NO_DEADLINE && System.nanoTime() - deadline >= 0;
+	}
+
+	/** Offer move as the best move found so far, replacing any earlier one. */
+	public void offer(Move move) {
+		bestSoFar= move;
+	}
+
+	/** Return the best move offered so far, or null if none has been. */
+	public Move getBestSoFar() {
+		return bestSoFar;
+	}
+}
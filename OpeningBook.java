@@ -0,0 +1,148 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/** An instance is a book of the best moves for the boards of the opening,
+ *  read from a file made by running this class. Looking up a board costs a
+ *  binary search of the file, which is memory-mapped rather than read, so
+ *  opening a large book is instant and only the pages it touches are loaded.
+ *  A board and its left-right mirror image share one entry, keyed by the
+ *  board's canonical key (see Board.getCanonicalKey).
+ *  The file is a header (MAGIC) followed by one long per board, sorted:
+ *  the canonical key shifted left 3 bits, plus the column of the best move
+ *  on the board with that key. */
+public class OpeningBook {
+	/** The first long of every book file. */
+	private static final long MAGIC= 0x43344f50454e3031L; // "C4OPEN01"
+
+	private final LongBuffer entries; // the entries of the file, sorted
+
+	/** Constructor: the book in the file at path.
+	 *  Throw an IOException if it cannot be read or is not a book. */
+	public OpeningBook(String path) throws IOException {
+		try (FileChannel channel= FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+			long size= channel.size();
+			if (size < Long.BYTES || size % Long.BYTES != 0 || size > Integer.MAX_VALUE)
+				throw new IOException(path + " is not an opening book");
+			ByteBuffer buffer= channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			if (buffer.getLong(0) != MAGIC)
+				throw new IOException(path + " is not an opening book");
+			buffer.position(Long.BYTES);
+			entries= buffer.slice().asLongBuffer();
+		}
+	}
+
+	/** Return the number of boards in this book. */
+	public int size() {
+		return entries.limit();
+	}
+
+	/** Return the book move for the player to move on board,
+	 *  or null if board is not in this book. */
+	public Move getMove(Board board) {
+		long key= board.getPositionKey();
+		long mirror= Board.mirrorPositionKey(key);
+		int column= find(Math.min(key, mirror));
+		if (column < 0)
+			return null;
+		return Move.of(mirror < key ? Board.NUM_COLS - 1 - column : column);
+	}
+
+	/** Return the column stored for canonical key key, or -1 if there is none. */
+	private int find(long key) {
+		int low= 0;
+		int high= entries.limit() - 1;
+		while (low <= high) {
+			int mid= (low + high) >>> 1;
+			long entry= entries.get(mid);
+			long k= entry >>> 3;
+			if (k < key)
+				low= mid + 1;
+			else if (k > key)
+				high= mid - 1;
+			else
+				return (int)(entry & 7);
+		}
+		return -1;
+	}
+
+	/** Write a book for every board reached in fewer than PLIES moves that is
+	 *  not over, searching each DEPTH moves ahead, to the file FILE.
+	 *  Arguments are PLIES DEPTH FILE [tt:MB] [threads:N]. */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 3) {
+			System.out.println("Format is PLIES DEPTH FILE [tt:MB] [threads:N]");
+			System.out.println("Writes to FILE the best move, searching DEPTH moves ahead,");
+			System.out.println("for every board reached in fewer than PLIES moves.");
+			System.out.println("The search uses a table of MB megabytes (default 64) and N threads (default 1).");
+			return;
+		}
+		int plies= Integer.parseInt(args[0]);
+		int depth= Integer.parseInt(args[1]);
+		int megabytes= 64;
+		int threads= 1;
+		for (int i= 3; i < args.length; i++) {
+			if (args[i].startsWith("tt:"))
+				megabytes= Integer.parseInt(args[i].substring(3));
+			else if (args[i].startsWith("threads:"))
+				threads= Integer.parseInt(args[i].substring(8));
+			else
+				throw new IllegalArgumentException("unknown option " + args[i]);
+		}
+		if (plies < 1 || depth < 1)
+			throw new IllegalArgumentException("PLIES and DEPTH must be at least 1");
+		Search search= new Search(new TranspositionTable(megabytes), new MoveOrder(MoveOrder.ALL), threads);
+
+		long[] entries= new long[0];
+		Set<Long> level= new HashSet<Long>(); // the canonical keys of the boards at this ply
+		level.add(new Board().getCanonicalKey());
+		for (int ply= 0; ply < plies && !level.isEmpty(); ply++) {
+			long start= System.nanoTime();
+			long[] keys= new long[level.size()];
+			int n= 0;
+			for (long key : level)
+				keys[n++]= key;
+			Arrays.sort(keys); // so the book does not depend on the order of the set
+			Turn player= ply % 2 == 0 ? Turn.FIRST : Turn.SECOND;
+			Set<Long> next= new HashSet<Long>();
+			int size= entries.length;
+			entries= Arrays.copyOf(entries, size + keys.length);
+			for (long key : keys) {
+				Board board= Board.fromPositionKey(key);
+				Move move= search.getBestMove(board, player, Math.min(depth, Board.NUM_ROWS * Board.NUM_COLS - ply));
+				entries[size++]= key << 3 | move.getColumn();
+				if (ply + 1 < plies)
+					for (int moves= board.getMoveMask(); moves != 0; moves&= moves - 1) {
+						Board child= new Board(board, player, Move.of(Integer.numberOfTrailingZeros(moves)));
+						if (child.hasConnectFour() == null && !child.isFull())
+							next.add(child.getCanonicalKey());
+					}
+			}
+			System.out.println("ply " + ply + ": " + keys.length + " boards in "
+					+ (System.nanoTime() - start) / 1000000 + "ms");
+			level= next;
+		}
+		Arrays.sort(entries);
+		write(Paths.get(args[2]), entries);
+		System.out.println("wrote " + entries.length + " boards to " + args[2]);
+	}
+
+	/** Write a book with entries entries, which are sorted, to the file at path. */
+	private static void write(Path path, long[] entries) throws IOException {
+		try (DataOutputStream out= new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+			out.writeLong(MAGIC);
+			for (long entry : entries)
+				out.writeLong(entry);
+		}
+	}
+}
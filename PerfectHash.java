@@ -0,0 +1,220 @@
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+/** An instance is a minimal perfect hash function for a fixed set of n longs:
+ *  it maps the longs of the set to 0..n-1 without collisions, using about
+ *  3 bits per long and without storing the longs themselves. A long not in
+ *  the set is mapped to an arbitrary index (or -1), so a table indexed by
+ *  the function must check what it finds there.
+ *  The function is built as in BBHash: each long is hashed into a bit array
+ *  twice as large as the number of longs left; the bits hit by exactly one
+ *  long are kept and those longs are placed, and the rest go on to the next,
+ *  smaller, level. The index of a long is the number of kept bits before its
+ *  bit. The few longs left after the last level are kept in a sorted list.
+ *  Building streams the set once per level, so the set need not fit in memory. */
+public class PerfectHash {
+	/** A set of longs to build a function for, which can be streamed repeatedly. */
+	public interface Keys {
+		/** Call action on every long of the set once, in any order. */
+		void forEach(LongConsumer action) throws IOException;
+	}
+
+	/** The greatest number of levels. */
+	private static final int MAX_LEVELS= 40;
+
+	/** The number of longs left below which no more levels are made. */
+	private static final int MIN_LEVEL_KEYS= 1024;
+
+	/** The number of words of bits covered by each rank. */
+	private static final int RANK_WORDS= 8;
+
+	private final long[] offsets; // offsets[l] is the first bit of level l, and offsets[levels] the end
+	private final LongBuffer bits; // the kept bits of all levels, one level after another
+	private final LongBuffer ranks; // ranks.get(i) is the number of bits set in words before RANK_WORDS*i
+	private final LongBuffer extra; // the longs left after the last level, sorted
+	private final long placed; // the number of longs placed in the levels
+
+	/** Constructor: an instance with the given parts (see the fields). */
+	private PerfectHash(long[] offsets, LongBuffer bits, LongBuffer ranks, LongBuffer extra) {
+		this.offsets= offsets;
+		this.bits= bits;
+		this.ranks= ranks;
+		this.extra= extra;
+		placed= rank(offsets[offsets.length - 1]);
+	}
+
+	/** Return a function for keys, a set of n distinct longs.
+	 *  Throw an IllegalArgumentException if keys turns out to have duplicates. */
+	public static PerfectHash build(Keys keys, long n) throws IOException {
+		List<long[]> levels= new ArrayList<long[]>();
+		long left= n;
+		while (left >= MIN_LEVEL_KEYS && levels.size() < MAX_LEVELS) {
+			long size= Math.max(64, (2 * left + 63) & ~63L); // in bits
+			if (size / 64 > Integer.MAX_VALUE)
+				throw new IllegalArgumentException("too many keys for a perfect hash");
+			long[] once= new long[(int)(size / 64)];
+			long[] twice= new long[once.length];
+			int level= levels.size();
+			keys.forEach(key -> {
+				if (find(levels, key) >= 0)
+					return;
+				long bit= hash(key, level, size);
+				int w= (int)(bit >>> 6);
+				long b= 1L << bit;
+				if ((once[w] & b) != 0)
+					twice[w]|= b;
+				once[w]|= b;
+			});
+			long kept= 0;
+			for (int w= 0; w < once.length; w++) {
+				once[w]&= ~twice[w];
+				kept+= Long.bitCount(once[w]);
+			}
+			levels.add(once);
+			left-= kept;
+		}
+		if (left > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("too many keys for a perfect hash");
+		long[] extra= new long[(int)left];
+		int[] count= {0};
+		keys.forEach(key -> {
+			if (find(levels, key) < 0)
+				extra[count[0]++]= key;
+		});
+		Arrays.sort(extra);
+		for (int i= 1; i < extra.length; i++)
+			if (extra[i] == extra[i - 1])
+				throw new IllegalArgumentException("the keys of a perfect hash must be distinct");
+
+		long[] offsets= new long[levels.size() + 1];
+		int words= 0;
+		for (int l= 0; l < levels.size(); l++) {
+			offsets[l + 1]= offsets[l] + 64L * levels.get(l).length;
+			words+= levels.get(l).length;
+		}
+		long[] bits= new long[words];
+		int w= 0;
+		for (long[] level : levels) {
+			System.arraycopy(level, 0, bits, w, level.length);
+			w+= level.length;
+		}
+		long[] ranks= new long[(words + RANK_WORDS - 1) / RANK_WORDS + 1];
+		long rank= 0;
+		for (int i= 0; i < words; i++) {
+			if (i % RANK_WORDS == 0)
+				ranks[i / RANK_WORDS]= rank;
+			rank+= Long.bitCount(bits[i]);
+		}
+		ranks[ranks.length - 1]= rank;
+		return new PerfectHash(offsets, LongBuffer.wrap(bits), LongBuffer.wrap(ranks), LongBuffer.wrap(extra));
+	}
+
+	/** Return the level that key was placed in while building levels,
+	 *  or -1 if it was not placed in any of them. */
+	private static int find(List<long[]> levels, long key) {
+		for (int l= 0; l < levels.size(); l++) {
+			long[] level= levels.get(l);
+			long bit= hash(key, l, 64L * level.length);
+			if ((level[(int)(bit >>> 6)] & 1L << bit) != 0)
+				return l;
+		}
+		return -1;
+	}
+
+	/** Return the function that buffer holds from its position on, as written
+	 *  by write, and advance the position of buffer past it. The function uses
+	 *  buffer rather than copying it. */
+	public static PerfectHash read(LongBuffer buffer) {
+		long[] offsets= new long[(int)buffer.get() + 1];
+		for (int l= 1; l < offsets.length; l++)
+			offsets[l]= buffer.get();
+		LongBuffer bits= slice(buffer, (int)(offsets[offsets.length - 1] / 64));
+		LongBuffer ranks= slice(buffer, (int)buffer.get());
+		LongBuffer extra= slice(buffer, (int)buffer.get());
+		return new PerfectHash(offsets, bits, ranks, extra);
+	}
+
+	/** Return the next length longs of buffer, and advance its position past them. */
+	private static LongBuffer slice(LongBuffer buffer, int length) {
+		LongBuffer slice= buffer.slice();
+		slice.limit(length);
+		buffer.position(buffer.position() + length);
+		return slice;
+	}
+
+	/** Write this function to out, in the form that read reads. */
+	public void write(DataOutputStream out) throws IOException {
+		out.writeLong(offsets.length - 1);
+		for (int l= 1; l < offsets.length; l++)
+			out.writeLong(offsets[l]);
+		for (int i= 0; i < bits.limit(); i++)
+			out.writeLong(bits.get(i));
+		out.writeLong(ranks.limit());
+		for (int i= 0; i < ranks.limit(); i++)
+			out.writeLong(ranks.get(i));
+		out.writeLong(extra.limit());
+		for (int i= 0; i < extra.limit(); i++)
+			out.writeLong(extra.get(i));
+	}
+
+	/** Return the number of longs written by write. */
+	public long getLength() {
+		return offsets.length + bits.limit() + 1 + ranks.limit() + 1 + extra.limit();
+	}
+
+	/** Return the number of longs in the set of this function. */
+	public long size() {
+		return placed + extra.limit();
+	}
+
+	/** Return the index of key if key is in the set of this function.
+	 *  Otherwise, return an arbitrary index, or -1. */
+	public long index(long key) {
+		for (int l= 0; l < offsets.length - 1; l++) {
+			long bit= offsets[l] + hash(key, l, offsets[l + 1] - offsets[l]);
+			if ((bits.get((int)(bit >>> 6)) & 1L << bit) != 0)
+				return rank(bit);
+		}
+		int lo= 0;
+		int hi= extra.limit() - 1;
+		while (lo <= hi) {
+			int mid= (lo + hi) >>> 1;
+			long k= extra.get(mid);
+			if (k < key)
+				lo= mid + 1;
+			else if (k > key)
+				hi= mid - 1;
+			else
+				return placed + mid;
+		}
+		return -1;
+	}
+
+	/** Return the number of kept bits before bit. */
+	private long rank(long bit) {
+		int word= (int)(bit >>> 6);
+		long rank= ranks.get(word / RANK_WORDS);
+		for (int w= word / RANK_WORDS * RANK_WORDS; w < word; w++)
+			rank+= Long.bitCount(bits.get(w));
+		if ((bit & 63) != 0)
+			rank+= Long.bitCount(bits.get(word) & -1L >>> (64 - (bit & 63)));
+		return rank;
+	}
+
+	/** Return the bit, in 0..size-1, that key hashes to at level. */
+	private static long hash(long key, int level, long size) {
+		return Long.remainderUnsigned(mix(key + (level + 1) * 0x9e3779b97f4a7c15L), size);
+	}
+
+	/** Return a scrambling of x, in which every bit of x affects every bit. */
+	static long mix(long x) {
+		x= (x ^ x >>> 33) * 0xff51afd7ed558ccdL;
+		x= (x ^ x >>> 33) * 0xc4ceb9fe1a85ec53L;
+		return x ^ x >>> 33;
+	}
+}
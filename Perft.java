@@ -0,0 +1,134 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/** Perft ("performance test") counts the sequences of possible moves of a
+ *  given length from a board, by generating every one of them with
+ *  Board.getPossibleMoves and the Board(Board, Turn, Move) constructor.
+ *  A sequence ends early when the game does, since there are no possible
+ *  moves then. The counts check that move generation is correct, e.g. after
+ *  a change to the representation of boards, and the speed of counting
+ *  measures how fast it is. Counting can be split over threads with a
+ *  ForkJoinPool. */
+public class Perft {
+	/** The counts for the empty board at depths 0, 1, 2, and so on. A column
+	 *  can first fill after 6 moves and a game can first end after 7, so they
+	 *  are the powers of 7 up to depth 6. */
+	static final long[] EMPTY_BOARD_COUNTS= {1, 7, 49, 343, 2401, 16807, 117649,
+			823536, 5673234};
+
+	/** The remaining depth at or below which a parallel count is not split further. */
+	private static final int SEQUENTIAL_DEPTH= 5;
+
+	/** Return the number of sequences of depth possible moves from board,
+	 *  on which player is to move. Precondition: depth >= 0. */
+	public static long count(Board board, Turn player, int depth) {
+		if (depth == 0)
+			return 1;
+		Move[] moves= board.getPossibleMoves();
+		if (depth == 1)
+			return moves.length;
+		long count= 0;
+		for (Move move : moves)
+			count+= count(new Board(board, player, move), player.getNext(), depth - 1);
+		return count;
+	}
+
+	/** Return the number of sequences as count(board, player, depth) does,
+	 *  counting them on the threads of pool. */
+	public static long count(Board board, Turn player, int depth, ForkJoinPool pool) {
+		return pool.invoke(new Count(board, player, depth));
+	}
+
+	/** The count of the sequences from a board, which is split into the
+	 *  counts from each of its children while they are deep enough. */
+	private static class Count extends RecursiveTask<Long> {
+		private static final long serialVersionUID= 1L;
+
+		private final Board board; // the board to count from
+		private final Turn player; // the player to move on board
+		private final int depth; // the length of the sequences to count
+
+		/** Constructor: the count of sequences of depth moves from board,
+		 *  on which player is to move. */
+		Count(Board board, Turn player, int depth) {
+			this.board= board;
+			this.player= player;
+			this.depth= depth;
+		}
+
+		protected @Override Long compute() {
+			if (depth <= SEQUENTIAL_DEPTH)
+				return count(board, player, depth);
+			List<Count> children= new ArrayList<Count>();
+			for (Move move : board.getPossibleMoves())
+				children.add(new Count(new Board(board, player, move), player.getNext(), depth - 1));
+			long count= 0;
+			for (Count child : invokeAll(children))
+				count+= child.join();
+			return count;
+		}
+	}
+
+	/** Count the sequences of moves from a board and print the counts and speed.
+	 *  Arguments are DEPTH [BOARD] [threads:N] [divide], or verify [threads:N];
+	 *  see the usage message. */
+	public static void main(String[] args) {
+		if (args.length < 1) {
+			System.out.println("Format is DEPTH [BOARD] [threads:N] [divide]  or  verify [threads:N]");
+			System.out.println("Prints the number of sequences of possible moves of length 1 to DEPTH from");
+			System.out.println("BOARD, the columns (0 to 6) of the moves from the empty board, e.g. 3323");
+			System.out.println("(default the empty board), and the sequences counted per second. N threads");
+			System.out.println("(default 1) count them. divide also prints the count after each first move.");
+			System.out.println("verify checks the counts for the empty board up to depth "
+					+ (EMPTY_BOARD_COUNTS.length - 1) + " against known ones.");
+			return;
+		}
+		boolean verify= args[0].equals("verify");
+		int depth= verify ? EMPTY_BOARD_COUNTS.length - 1 : AI.parseInt(args[0], "DEPTH", 0);
+		Board board= new Board();
+		int threads= 1;
+		boolean divide= false;
+		for (int i= 1; i < args.length; i++) {
+			if (args[i].startsWith("threads:"))
+				threads= AI.parseInt(args[i].substring(8), "threads", 1);
+			else if (args[i].equals("divide") && !verify)
+				divide= true;
+			else if (!verify && i == 1)
+				board= Board.fromMoves(args[i], "BOARD");
+			else
+				throw new IllegalArgumentException("unknown option " + args[i]);
+		}
+		Turn player= board.getPlayerToMove();
+		ForkJoinPool pool= threads == 1 ? null : new ForkJoinPool(threads);
+
+		boolean failed= false;
+		for (int d= 1; d <= depth; d++) {
+			long start= System.nanoTime();
+			long count= pool == null ? count(board, player, d) : count(board, player, d, pool);
+			long elapsed= Math.max(1, System.nanoTime() - start);
+			String check= "";
+			if (verify) {
+				failed|= count != EMPTY_BOARD_COUNTS[d];
+				check= count == EMPTY_BOARD_COUNTS[d] ? "  ok" : "  WRONG, expected " + EMPTY_BOARD_COUNTS[d];
+			}
+			System.out.printf("depth %2d: %,15d in %,8d ms (%,d/s)%s%n", d, count,
+					elapsed / 1000000, (long)(count * 1e9 / elapsed), check);
+		}
+		if (divide && depth >= 1)
+			for (Move move : board.getPossibleMoves()) {
+				Board child= new Board(board, player, move);
+				long count= pool == null ? count(child, player.getNext(), depth - 1)
+						: count(child, player.getNext(), depth - 1, pool);
+				System.out.println(move.getColumn() + ": " + count);
+			}
+		if (pool != null)
+			pool.shutdown();
+		if (verify) {
+			System.out.println(failed ? "perft FAILED" : "perft ok");
+			if (failed)
+				System.exit(1);
+		}
+	}
+}
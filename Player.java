@@ -1,3 +1,5 @@
+import java.util.concurrent.CompletableFuture;
+
 /** An instance is an entity that can supply moves for a Connect Four game. */
 public abstract class Player {
 	private String name; // The name of this player
@@ -16,6 +18,30 @@ public abstract class Player {
 	 *  This uses Async so that the move can be determined on a separate thread.
 	 *  Precondition: board is not null and has at least one possible move. */
 	public abstract Async<Move> getAsyncMove(Board board);
+
+	/** Return a future of this Player's move for the board of request.
+	 *  The player should answer before the deadline of request, stop thinking
+	 *  once request is cancelled, and offer request its best move so far as it
+	 *  goes; if it does not answer in time, the UI cancels request and plays
+	 *  that move instead. The future may complete with null if the player has
+	 *  no move to give. This is called on the event thread, and by default it
+	 *  asks getAsyncMove, which knows nothing of deadlines or cancellation.
+	 *  Precondition: the board of request has at least one possible move. */
+	public CompletableFuture<Move> requestMove(MoveRequest request) {
+		CompletableFuture<Move> move= new CompletableFuture<Move>();
+		getAsyncMove(request.getBoard()).async(move::complete);
+		return move;
+	}
+	
+	/** Called once before the game starts, with the counters of the game,
+	 *  which the searches of this player should add to. By default, do nothing. */
+	public void startGame(SearchStatistics statistics) { }
+	
+	/** Wait until this player has finished finding every move requested of it,
+	 *  including any that the UI gave up waiting for (see requestMove), so that
+	 *  observeMove does not run while the player is still thinking. The UI calls
+	 *  this before observeMove. By default, return at once. */
+	public void awaitMoves() { }
 	
 	/** Called after every time a move is made.
 	 *  board is the state of the board after the move.
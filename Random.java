@@ -17,10 +17,11 @@ public class Random extends SynchronousPlayer {
 	 *  and the next integer generated by the random-number generator.
 	 *  Precondition: board is not null and has at least one possible move. */
     public @Override Move getMove(Board board) {
-		//TODO: part 1 of A5
     	assert(board != null);
-    	int l = board.getPossibleMoves().length;
-    	int r = random.nextInt(l);
-    	return board.getPossibleMoves()[r];
+    	int moves= board.getMoveMask();
+    	// skip the r columns that come before the chosen one
+    	for (int r= random.nextInt(Integer.bitCount(moves)); r > 0; r--)
+    		moves&= moves - 1;
+    	return Move.of(Integer.numberOfTrailingZeros(moves));
 	}
 }
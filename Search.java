@@ -0,0 +1,659 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/** An instance searches the game space for the best move on a Board
+ *  using alpha-beta pruning.
+ *  The search is written in negamax form: the value of a board is always
+ *  from the point of view of the player about to move on it, so the value
+ *  of a board is the largest of the negated values of its children.
+ *  Alpha-beta skips the moves that cannot change that value, so the search
+ *  finds the same value and move as minimax to the same depth while visiting
+ *  a small fraction of the boards.
+ *  A MoveOrder tries the moves most likely to be best first, which is what
+ *  makes the pruning effective. A TranspositionTable, if given, remembers the
+ *  results for boards that are reached again by a different order of moves,
+ *  so they are not searched again.
+ *  getBestMoveUntil deepens the search one move at a time until a deadline,
+ *  so that the time spent on a move is predictable.
+ *  Besides plain alpha-beta, a search can use one of two refinements (see
+ *  Mode) that search most moves with a null window, alpha = beta - 1, which
+ *  only tells whether a board is better or worse than a given value but
+ *  prunes far more.
+ *  A search can use several threads by sharing its table with helper searches
+ *  of the same board (the "lazy SMP" design): the helpers fill the table with
+ *  results that this search then finds instead of searching for them. The move
+ *  is always the one found by this search, so with one thread it does not
+ *  depend on timing.
+ *  A search can also ponder: search on a background thread, while the
+ *  opponent thinks, the board that the opponent's expected reply leads to,
+ *  filling the table so that the search after the reply is quick. */
+public class Search {
+	/** The ways to search with alpha-beta pruning. */
+	public enum Mode {
+		/** Search every board with the full window of values it could have. */
+		ALPHA_BETA,
+		/** Principal variation search: search the first move of each board,
+		 *  which good move ordering makes the best one, with the full window,
+		 *  and only prove that each other move is worse with a null window,
+		 *  searching it again with the full window if it turns out better.
+		 *  Each depth of iterative deepening starts with an aspiration window
+		 *  around the value of the previous depth, widened if the value is outside it. */
+		PVS,
+		/** MTD(f): find the value of the root by a series of null-window
+		 *  searches, each telling whether the value is above or below a guess,
+		 *  starting from the value of the previous depth of iterative deepening
+		 *  and converging on the value. The table keeps the searches from
+		 *  repeating each other's work, so this mode needs one to be fast. */
+		MTDF;
+
+		/** Return the mode named by name: "ab", "pvs", or "mtdf".
+		 *  Throw an IllegalArgumentException if name is not recognized. */
+		public static Mode parse(String name) {
+			switch (name) {
+			case "ab": return ALPHA_BETA;
+			case "pvs": return PVS;
+			case "mtdf": return MTDF;
+			default: throw new IllegalArgumentException("unknown search mode " + name);
+			}
+		}
+	}
+
+	/** The value of a board on which the player to move has already won.
+	 *  A board won k moves into the search is valued WIN - k, so that
+	 *  quicker wins (and slower losses) are preferred. */
+	public static final int WIN= 1000000;
+
+	/** A bound that is larger than the value of any board. */
+	private static final int INFINITY= WIN + 1;
+
+	/** The greatest number of moves in a game, and so the greatest ply. */
+	private static final int MAX_PLY= Board.NUM_ROWS * Board.NUM_COLS;
+
+	/** The half-width of the first aspiration window of PVS. */
+	private static final int ASPIRATION= 16;
+
+	/** The guess given to searchDepth when there is no guess. */
+	private static final int NO_GUESS= Integer.MIN_VALUE;
+
+	/** A deadline that never passes. */
+	private static final long NO_DEADLINE= Long.MAX_VALUE;
+
+	/** The number of boards visited between checks of the deadline. */
+	private static final int CHECK_INTERVAL= 1024;
+
+	/** The table of results for boards already searched, or null if none. */
+	private final TranspositionTable table;
+
+	/** The order in which to try the moves of each board. */
+	private final MoveOrder order;
+
+	/** How to value the boards at the depth of the search. */
+	private final Evaluation evaluation;
+
+	/** How to search. */
+	private final Mode mode;
+
+	/** columns[ply] holds the ordered columns of the board at ply. */
+	private final int[][] columns= new int[MAX_PLY + 1][Board.NUM_COLS];
+
+	/** The searches that help this one on other threads (empty if none),
+	 *  and the pool of threads that they run on (null if none). */
+	private final Search[] helpers;
+	private final ForkJoinPool pool;
+
+	/** The thread that this search ponders on (null until it first ponders),
+	 *  and the task of the pondering under way (null if none). */
+	private ForkJoinPool ponderer;
+	private ForkJoinTask<Move> pondering;
+
+	private long nodes; // the number of boards visited by the last search
+	private int value; // the value of the board searched by the last search
+	private int depthReached; // the depth of the last search that finished
+
+	/** The System.nanoTime() at which the search must stop. */
+	private long deadline= NO_DEADLINE;
+	private volatile boolean halted; // true if a helper or pondering has been told to stop
+	private MoveRequest request; // the request that can cancel the search, or null if none
+	private boolean stopped; // true once the search has had to stop early
+
+	/** The counts of the current search that are added to statistics when it
+	 *  finishes (see SearchStatistics.recordSearch), and the statistics, or
+	 *  null if the search is not counted. */
+	private long expansions, searched, evaluations, terminals, probes, hits;
+	private SearchStatistics statistics;
+
+	/** Constructor: a search that does not use a transposition table
+	 *  and tries moves from left to right. */
+	public Search() {
+		this(null, new MoveOrder(0));
+	}
+
+	/** Constructor: a search on one thread that remembers results in table
+	 *  (null for none) and tries moves in order. The table and the order's
+	 *  killer moves and history are kept across searches. */
+	public Search(TranspositionTable table, MoveOrder order) {
+		this(table, order, 1);
+	}
+
+	/** Constructor: a search on threads threads that remembers results in table
+	 *  and tries moves in order. The table and the order's killer moves and
+	 *  history are kept across searches.
+	 *  Throw an IllegalArgumentException if threads < 1, or if threads > 1 and
+	 *  table is null, since the threads can only help each other through a table. */
+	public Search(TranspositionTable table, MoveOrder order, int threads) {
+		this(table, order, threads, Evaluation.LINES);
+	}
+
+	/** Constructor: a search as above that values the boards at its depth
+	 *  with evaluation. */
+	public Search(TranspositionTable table, MoveOrder order, int threads, Evaluation evaluation) {
+		this(table, order, threads, evaluation, Mode.ALPHA_BETA);
+	}
+
+	/** Constructor: a search as above that searches in mode mode. */
+	public Search(TranspositionTable table, MoveOrder order, int threads, Evaluation evaluation, Mode mode) {
+		if (threads < 1)
+			throw new IllegalArgumentException("a search needs at least one thread");
+		if (threads > 1 && table == null)
+			throw new IllegalArgumentException("a search on several threads needs a table");
+		this.table= table;
+		this.order= order;
+		this.evaluation= evaluation;
+		this.mode= mode;
+		helpers= new Search[threads - 1];
+		for (int i= 0; i < helpers.length; i++)
+			helpers[i]= new Search(table, new MoveOrder(order.getHeuristics()), 1, evaluation, mode);
+		pool= threads == 1 ? null : new ForkJoinPool(threads - 1);
+	}
+
+	/** Return the best move for player on board, searching depth moves ahead.
+	 *  If several moves are equally good, return the one that is tried first,
+	 *  which is the one with the left-most column if moves are not ordered.
+	 *  Modes other than ALPHA_BETA build on the value found at the previous
+	 *  depth, so they deepen up to depth as getBestMoveUntil does.
+	 *  Precondition: board has at least one possible move and depth >= 1. */
+	public Move getBestMove(Board board, Turn player, int depth) {
+		return getBestMove(board, player, depth, null);
+	}
+
+	/** Return the best move for player on board as getBestMove(board, player,
+	 *  depth) does, but stop within a few thousand boards once request (if not
+	 *  null) is cancelled, and then return null, or in modes other than
+	 *  ALPHA_BETA the move of the deepest search that finished. */
+	public Move getBestMove(Board board, Turn player, int depth, MoveRequest request) {
+		if (mode != Mode.ALPHA_BETA)
+			return getBestMoveUntil(board, player, depth, NO_DEADLINE, request);
+		long start= System.nanoTime();
+		nodes= 0;
+		deadline= NO_DEADLINE;
+		this.request= request;
+		List<ForkJoinTask<?>> help= startHelpers(board, player, depth);
+		Move best= searchDepth(board, player, depth, NO_GUESS);
+		stopHelpers(help);
+		this.request= null;
+		record(start);
+		return best;
+	}
+
+	/** Return the best move for player on board found by iterative deepening:
+	 *  search 1 move ahead, then 2, and so on up to maxDepth, and return the
+	 *  move of the deepest search that finished before System.nanoTime()
+	 *  reached deadline. The search to depth 1 always finishes (unless it
+	 *  is pondering and is stopped, when the result is null), and deepening
+	 *  stops early once the outcome of the game is certain.
+	 *  Precondition: board has at least one possible move and maxDepth >= 1. */
+	public Move getBestMoveUntil(Board board, Turn player, int maxDepth, long deadline) {
+		return getBestMoveUntil(board, player, maxDepth, deadline, null);
+	}
+
+	/** Return the best move for player on board as getBestMoveUntil(board,
+	 *  player, maxDepth, deadline) does, but also stop deepening, within a few
+	 *  thousand boards, once request (if not null) is cancelled, and offer
+	 *  request the move of each depth as its best move so far. */
+	public Move getBestMoveUntil(Board board, Turn player, int maxDepth, long deadline, MoveRequest request) {
+		long start= System.nanoTime();
+		nodes= 0;
+		maxDepth= Math.min(maxDepth, MAX_PLY - board.getChipCount());
+		this.deadline= NO_DEADLINE;
+		Move best= searchDepth(board, player, 1, NO_GUESS);
+		if (stopped) {
+			record(start);
+			return null;
+		}
+		int bestValue= value;
+		int bestDepth= 1;
+		if (request != null)
+			request.offer(best);
+		this.deadline= deadline;
+		this.request= request;
+		List<ForkJoinTask<?>> help= startHelpers(board, player, maxDepth);
+		for (int depth= 2; depth <= maxDepth && !isCertain(bestValue); depth++) {
+			Move move= searchDepth(board, player, depth, bestValue);
+			if (stopped)
+				break;
+			best= move;
+			bestValue= value;
+			bestDepth= depth;
+			if (request != null)
+				request.offer(best);
+		}
+		stopHelpers(help);
+		this.deadline= NO_DEADLINE;
+		this.request= null;
+		value= bestValue;
+		depthReached= bestDepth;
+		record(start);
+		return best;
+	}
+
+	/** Return the analysis of board for player: search every possible move
+	 *  by iterative deepening up to maxDepth, as getBestMoveUntil does, until
+	 *  System.nanoTime() reaches deadline (NO_DEADLINE in MoveRequest for none)
+	 *  or the outcome of every move with an exact score is certain, and report
+	 *  the scores of the deepest search that finished and the principal
+	 *  variations of the best lines moves. Only moves that might be among the
+	 *  best lines get exact scores; the others are only shown to be worse,
+	 *  which is much cheaper. The variations are read from the table, so
+	 *  without one they stop after their first move.
+	 *  Precondition: board has at least one possible move, maxDepth >= 1,
+	 *  and lines >= 1. */
+	public Analysis analyze(Board board, Turn player, int maxDepth, long deadline, int lines) {
+		long start= System.nanoTime();
+		nodes= 0;
+		maxDepth= Math.min(maxDepth, MAX_PLY - board.getChipCount());
+		int[] scores= new int[Board.NUM_COLS];
+		boolean[] exact= new boolean[Board.NUM_COLS];
+		int[] top= new int[Board.NUM_COLS];
+		this.deadline= NO_DEADLINE;
+		int found= analyzeRoot(board, player, 1, lines, scores, exact, top);
+		int bestDepth= 1;
+		this.deadline= deadline;
+		List<ForkJoinTask<?>> help= startHelpers(board, player, maxDepth);
+		int[] nextScores= new int[Board.NUM_COLS];
+		boolean[] nextExact= new boolean[Board.NUM_COLS];
+		int[] nextTop= new int[Board.NUM_COLS];
+		for (int depth= 2; depth <= maxDepth && !allCertain(scores, exact); depth++) {
+			int n= analyzeRoot(board, player, depth, lines, nextScores, nextExact, nextTop);
+			if (n < 0)
+				break;
+			found= n;
+			System.arraycopy(nextScores, 0, scores, 0, scores.length);
+			System.arraycopy(nextExact, 0, exact, 0, exact.length);
+			System.arraycopy(nextTop, 0, top, 0, top.length);
+			bestDepth= depth;
+		}
+		stopHelpers(help);
+		this.deadline= NO_DEADLINE;
+		value= scores[top[0]];
+		depthReached= bestDepth;
+		record(start);
+		List<List<Move>> variations= new ArrayList<List<Move>>();
+		for (int i= 0; i < found; i++)
+			variations.add(getLine(board, player, Move.of(top[i]), bestDepth));
+		return new Analysis(board, player, bestDepth, nodes, System.nanoTime() - start,
+				scores, exact, variations);
+	}
+
+	/** Indicate whether every exact score in scores is certain (see exact). */
+	private static boolean allCertain(int[] scores, boolean[] exact) {
+		for (int c= 0; c < scores.length; c++)
+			if (exact[c] && !isCertain(scores[c]))
+				return false;
+		return true;
+	}
+
+	/** Search every possible move of player on board depth moves ahead and
+	 *  store in scores[c] the value of the move in column c, or
+	 *  Integer.MIN_VALUE if column c is full. The value is exact, and exact[c]
+	 *  true, if the move might be among the best lines moves; otherwise it is
+	 *  an upper bound that shows that the move is not. Store in top the columns
+	 *  of the best moves, best first, and return how many there are.
+	 *  If the deadline passes first, set stopped to true and return -1. */
+	private int analyzeRoot(Board board, Turn player, int depth, int lines,
+			int[] scores, boolean[] exact, int[] top) {
+		nodes++;
+		stopped= false;
+		order.age();
+		Arrays.fill(scores, Integer.MIN_VALUE);
+		Arrays.fill(exact, false);
+		int hashColumn= table == null ? -1 : TranspositionTable.getColumn(table.probe(board.getKey()));
+		int[] columns= this.columns[0];
+		int n= order.order(board, player, 0, hashColumn, columns);
+		int found= 0;
+		for (int i= 0; i < n; i++) {
+			int alpha= found < lines ? -INFINITY : scores[top[lines - 1]];
+			int v= search(board, player, columns[i], i == 0, depth - 1, 0, alpha, INFINITY);
+			if (stopped)
+				return -1;
+			scores[columns[i]]= v;
+			if (v <= alpha)
+				continue;
+			exact[columns[i]]= true;
+			int j= found < lines ? found++ : lines - 1;
+			for (; j > 0 && scores[top[j - 1]] < v; j--)
+				top[j]= top[j - 1];
+			top[j]= columns[i];
+		}
+		if (table != null)
+			table.store(board.getKey(), depth, 0, scores[top[0]], TranspositionTable.EXACT, top[0]);
+		return found;
+	}
+
+	/** Return the principal variation of move, player's move on board: move
+	 *  and then the moves that the table expects, at most length in all. */
+	private List<Move> getLine(Board board, Turn player, Move move, int length) {
+		List<Move> line= new ArrayList<Move>();
+		line.add(move);
+		board= new Board(board, player, move);
+		while (line.size() < length && board.hasConnectFour() == null && !board.isFull()) {
+			player= player.getNext();
+			Move next= getExpectedMove(board);
+			if (next == null)
+				break;
+			line.add(next);
+			board= new Board(board, player, next);
+		}
+		return line;
+	}
+
+	/** Start pondering: search board for player by iterative deepening up to
+	 *  maxDepth, as getBestMoveUntil does but with no deadline, on a background
+	 *  thread, until stopPondering is called. This search must not be used
+	 *  in any other way until then.
+	 *  Precondition: board has at least one possible move and maxDepth >= 1. */
+	public void startPondering(Board board, Turn player, int maxDepth) {
+		if (ponderer == null)
+			ponderer= new ForkJoinPool(1);
+		halted= false;
+		pondering= ponderer.submit(() -> getBestMoveUntil(board, player, maxDepth, NO_DEADLINE));
+	}
+
+	/** Stop pondering, within a few thousand boards, and return the move
+	 *  that the pondering search found if it finished on its own, or null if it
+	 *  had to be stopped (or was not pondering). The table keeps what it learned
+	 *  either way. If a move is returned, getValue and getDepth describe it. */
+	public Move stopPondering() {
+		if (pondering == null)
+			return null;
+		boolean finished= pondering.isDone();
+		halted= true;
+		Move move= pondering.join();
+		pondering= null;
+		halted= false;
+		return finished ? move : null;
+	}
+
+	/** Return the move for the player to move on board remembered by the
+	 *  table, which is the move that the last search expected to be played
+	 *  there, or null if there is none. */
+	public Move getExpectedMove(Board board) {
+		if (table == null)
+			return null;
+		int column= TranspositionTable.getColumn(table.probe(board.getKey()));
+		return column < 0 || board.columnIsFull(column) ? null : Move.of(column);
+	}
+
+	/** Forget everything learned by earlier searches: the entries of the
+	 *  table and the killer moves and history of the orders of this search
+	 *  and its helpers. Precondition: this search is not pondering. */
+	public void clear() {
+		if (table != null)
+			table.clear();
+		order.clear();
+		for (Search helper : helpers)
+			helper.order.clear();
+	}
+
+	/** Count this search's work in statistics (null for none) from now on. */
+	public void setStatistics(SearchStatistics statistics) {
+		this.statistics= statistics;
+	}
+
+	/** Add the counts of the search that started at System.nanoTime() start,
+	 *  including those of its helpers, to the statistics, if there are any,
+	 *  and clear them for the next search. */
+	private void record(long start) {
+		if (statistics != null)
+			statistics.recordSearch(nodes, expansions, searched, evaluations,
+					terminals, probes, hits, System.nanoTime() - start);
+		expansions= 0;
+		searched= 0;
+		evaluations= 0;
+		terminals= 0;
+		probes= 0;
+		hits= 0;
+	}
+
+	/** Indicate whether value means that the game has a certain outcome. */
+	private static boolean isCertain(int value) {
+		return Math.abs(value) >= WIN - MAX_PLY;
+	}
+
+	/** Start the helpers searching board for player, deepening up to maxDepth,
+	 *  and return their tasks. Half of the helpers start one move deeper than
+	 *  the others, so that they do not all search the same boards at once. */
+	private List<ForkJoinTask<?>> startHelpers(Board board, Turn player, int maxDepth) {
+		List<ForkJoinTask<?>> tasks= new ArrayList<ForkJoinTask<?>>();
+		for (int i= 0; i < helpers.length; i++) {
+			Search helper= helpers[i];
+			int start= 1 + i % 2;
+			helper.halted= false;
+			helper.nodes= 0;
+			tasks.add(pool.submit(() -> {
+				for (int depth= start; depth <= maxDepth && !helper.halted; depth++) {
+					helper.order.age();
+					helper.searchRoot(board, player, depth, -INFINITY, INFINITY);
+				}
+			}));
+		}
+		return tasks;
+	}
+
+	/** Tell the helpers to stop, wait until their tasks are done,
+	 *  and add the boards they visited to this search's count. */
+	private void stopHelpers(List<ForkJoinTask<?>> tasks) {
+		for (Search helper : helpers)
+			helper.halted= true;
+		for (ForkJoinTask<?> task : tasks)
+			task.join();
+		for (Search helper : helpers) {
+			nodes+= helper.nodes;
+			expansions+= helper.expansions;
+			searched+= helper.searched;
+			evaluations+= helper.evaluations;
+			terminals+= helper.terminals;
+			probes+= helper.probes;
+			hits+= helper.hits;
+			helper.record(0); // only clears the counts, since helpers have no statistics
+		}
+	}
+
+	/** Return the best move for player on board, searching depth moves ahead
+	 *  in this search's mode, and store its value in field value. guess is
+	 *  the value found at the previous depth, or NO_GUESS if there is none.
+	 *  If the deadline passes first, set stopped to true and return null.
+	 *  The history of the order is aged once per depth, however many times
+	 *  the mode searches the root at that depth. */
+	private Move searchDepth(Board board, Turn player, int depth, int guess) {
+		order.age();
+		if (mode == Mode.MTDF) {
+			int g= guess == NO_GUESS ? 0 : guess;
+			int lower= -INFINITY;
+			int upper= INFINITY;
+			Move best= null;
+			while (lower < upper) {
+				int beta= g == lower ? g + 1 : g;
+				Move move= searchRoot(board, player, depth, beta - 1, beta);
+				if (stopped)
+					return null;
+				g= value;
+				if (g < beta)
+					upper= g;
+				else {
+					lower= g;
+					best= move; // the move of a search that failed high is at least as good as g
+				}
+			}
+			value= g;
+			return best;
+		}
+		if (mode == Mode.ALPHA_BETA || guess == NO_GUESS || isCertain(guess))
+			return searchRoot(board, player, depth, -INFINITY, INFINITY);
+		// An aspiration window, widened on the side that the value falls outside.
+		int delta= ASPIRATION;
+		int lower= guess - delta;
+		int upper= guess + delta;
+		while (true) {
+			Move move= searchRoot(board, player, depth, lower, upper);
+			if (stopped)
+				return null;
+			if (value > lower && value < upper)
+				return move;
+			delta*= 4;
+			if (value <= lower)
+				lower= isCertain(value) ? -INFINITY : Math.max(-INFINITY, value - delta);
+			else
+				upper= isCertain(value) ? INFINITY : Math.min(INFINITY, value + delta);
+		}
+	}
+
+	/** Return the best move for player on board, searching depth moves ahead
+	 *  with the window lower..upper, and store its value in field value:
+	 *  if the value is at most lower, it is an upper bound on the value (and
+	 *  the move is meaningless); if it is at least upper, it is a lower bound.
+	 *  If the deadline passes first, set stopped to true and return null.
+	 *  Helpers also stop early if they are halted. */
+	private Move searchRoot(Board board, Turn player, int depth, int lower, int upper) {
+		nodes++;
+		stopped= false;
+		int hashColumn= table == null ? -1 : TranspositionTable.getColumn(table.probe(board.getKey()));
+		int[] columns= this.columns[0];
+		int n= order.order(board, player, 0, hashColumn, columns);
+		int best= -1;
+		int bestValue= -INFINITY;
+		for (int i= 0; i < n; i++) {
+			int v= search(board, player, columns[i], i == 0, depth - 1, 0, Math.max(lower, bestValue), upper);
+			if (stopped)
+				return null;
+			if (v > bestValue) {
+				bestValue= v;
+				best= columns[i];
+				if (v >= upper)
+					break;
+			}
+		}
+		if (table != null) {
+			int bound= bestValue <= lower ? TranspositionTable.UPPER
+					: bestValue >= upper ? TranspositionTable.LOWER : TranspositionTable.EXACT;
+			table.store(board.getKey(), depth, 0, bestValue, bound, best);
+		}
+		value= bestValue;
+		depthReached= depth;
+		return Move.of(best);
+	}
+
+	/** Return the value for player of player's move in column on board, which
+	 *  was reached ply moves into the search, searching depth moves ahead
+	 *  after the move, with bounds as in negamax for alpha and beta.
+	 *  In mode PVS, a move that is not first is searched with a null window
+	 *  first, and only searched again if it is better than alpha. */
+	private int search(Board board, Turn player, int column, boolean first, int depth, int ply, int alpha, int beta) {
+		Board child= new Board(board, player, Move.of(column));
+		if (mode != Mode.PVS || first || beta - alpha <= 1)
+			return -negamax(child, player.getNext(), depth, ply + 1, -beta, -alpha);
+		int v= -negamax(child, player.getNext(), depth, ply + 1, -alpha - 1, -alpha);
+		if (v > alpha && v < beta && !stopped)
+			v= -negamax(child, player.getNext(), depth, ply + 1, -beta, -alpha);
+		return v;
+	}
+
+	/** Return the number of boards visited by the last search. */
+	public long getNodeCount() {
+		return nodes;
+	}
+
+	/** Return the value, for the player to move, of the board searched by
+	 *  the last search. */
+	public int getValue() {
+		return value;
+	}
+
+	/** Return the depth that the last search finished searching to. */
+	public int getDepth() {
+		return depthReached;
+	}
+
+	/** Return the value of board for player, the player to move, searching
+	 *  depth moves ahead. board was reached ply moves into the search.
+	 *  If the value is at most alpha, the result is an upper bound on it;
+	 *  if the value is at least beta, the result is a lower bound on it;
+	 *  otherwise the result is the exact value.
+	 *  If the deadline passes, the request is cancelled, or this helper is halted,
+	 *  set stopped to true and return a meaningless value. */
+	private int negamax(Board board, Turn player, int depth, int ply, int alpha, int beta) {
+		if (++nodes % CHECK_INTERVAL == 0 && (halted || request != null && request.isCancelled()
+				|| deadline != NO_DEADLINE && System.nanoTime() - deadline >= 0))
+			stopped= true;
+		if (stopped)
+			return 0;
+		if (board.hasConnectFour() != null) {
+			terminals++;
+			return -(WIN - ply); // the opponent made four in a row on the last move
+		}
+		if (board.isFull()) {
+			terminals++;
+			return 0;
+		}
+		if (depth == 0) {
+			evaluations++;
+			return evaluation.evaluate(board, player);
+		}
+		int hashColumn= -1;
+		if (table != null) {
+			int entry= table.probe(board.getKey());
+			probes++;
+			if (entry != 0)
+				hits++;
+			if (entry != 0 && TranspositionTable.getDepth(entry) >= depth) {
+				int v= TranspositionTable.getValue(entry, ply);
+				switch (TranspositionTable.getBound(entry)) {
+				case TranspositionTable.EXACT: return v;
+				case TranspositionTable.LOWER: alpha= Math.max(alpha, v); break;
+				case TranspositionTable.UPPER: beta= Math.min(beta, v); break;
+				}
+				if (alpha >= beta)
+					return v;
+			}
+			hashColumn= TranspositionTable.getColumn(entry);
+		}
+		int[] columns= this.columns[ply];
+		int n= order.order(board, player, ply, hashColumn, columns);
+		int best= -INFINITY;
+		int bestColumn= -1;
+		expansions++;
+		for (int i= 0; i < n; i++) {
+			int column= columns[i];
+			searched++;
+			int v= search(board, player, column, i == 0, depth - 1, ply, Math.max(alpha, best), beta);
+			if (stopped)
+				return 0; // the value is meaningless, so do not store it
+			if (v > best) {
+				best= v;
+				bestColumn= column;
+				if (best >= beta) {
+					order.cutoff(board, player, ply, depth, column);
+					break; // the opponent will not allow this board
+				}
+			}
+		}
+		if (table != null) {
+			int bound= best <= alpha ? TranspositionTable.UPPER
+					: best >= beta ? TranspositionTable.LOWER : TranspositionTable.EXACT;
+			table.store(board.getKey(), depth, ply, best, bound, bestColumn);
+		}
+		return best;
+	}
+}
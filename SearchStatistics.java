@@ -0,0 +1,177 @@
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/** An instance counts the work done by the searches of AI players: the
+ *  boards that alpha-beta Searches visit, value, and look up in their tables,
+ *  and the States that trees of States create and compute minimax over.
+ *  The counters are LongAdders, so any number of threads can add to them
+ *  cheaply. Searches count in plain fields while they search and add their
+ *  counts here once per search, so counting costs almost nothing per board.
+ *  Each game run by a UI has an instance, which adds everything to the global
+ *  instance (see getGlobal) as well, and each AI in the game counts in an
+ *  instance of its own, which adds everything to the game's (see
+ *  Player.startGame). The global instance keeps the totals of all games and
+ *  the counters of the last game that finished, and is registered as the
+ *  JMX MBean named NAME. */
+public class SearchStatistics implements SearchStatisticsMXBean {
+	/** The name of the MBean of the global instance. */
+	public static final String NAME= "ConnectFour:type=SearchStatistics";
+
+	/** The indexes of the counters, and their names in snapshots. */
+	private static final int SEARCHES= 0;
+	private static final int NODES= 1;
+	private static final int EXPANSIONS= 2;
+	private static final int SEARCHED= 3;
+	private static final int EVALUATIONS= 4;
+	private static final int TERMINALS= 5;
+	private static final int PROBES= 6;
+	private static final int HITS= 7;
+	private static final int SEARCH_TIME= 8;
+	private static final int STATES= 9;
+	private static final int EXPAND_TIME= 10;
+	private static final int MINIMAX_STATES= 11;
+	private static final int MINIMAX_TIME= 12;
+	private static final String[] NAMES= {"searches", "nodes", "expansions", "searched",
+			"evaluations", "terminals", "tableProbes", "tableHits", "searchTime",
+			"statesCreated", "expandTime", "minimaxStates", "minimaxTime"};
+
+	/** The global instance, or null until it is first needed. */
+	private static SearchStatistics global;
+
+	/** The instance that everything counted here is also added to, or null if none. */
+	private final SearchStatistics parent;
+
+	private final LongAdder[] counters= new LongAdder[NAMES.length]; // times are in nanoseconds
+	private final LongAdder games= new LongAdder(); // the number of games that finished
+	private volatile Map<String,Long> lastGame= Collections.emptyMap(); // see getLastGame
+
+	/** Constructor: an instance with every counter 0, not attached to any other. */
+	public SearchStatistics() {
+		this(null);
+	}
+
+	/** Constructor: an instance with every counter 0 that also adds
+	 *  everything it counts to parent (null for none). */
+	public SearchStatistics(SearchStatistics parent) {
+		this.parent= parent;
+		for (int i= 0; i < counters.length; i++)
+			counters[i]= new LongAdder();
+	}
+
+	/** Return the global instance, registering it as an MBean when it is first needed.
+	 *  Throw a RuntimeException if it cannot be registered. */
+	public static synchronized SearchStatistics getGlobal() {
+		if (global == null) {
+			SearchStatistics statistics= new SearchStatistics();
+			try {
+				ManagementFactory.getPlatformMBeanServer().registerMBean(statistics, new ObjectName(NAME));
+			} catch (JMException err) {
+				throw new RuntimeException(err);
+			}
+			global= statistics;
+		}
+		return global;
+	}
+
+	/** Count a search by a Search that took time nanoseconds, visited nodes
+	 *  boards, searched the moves of expansions of them, searched searched
+	 *  moves in all, valued evaluations boards, reached terminals boards
+	 *  with the game over, and looked up probes boards in its table,
+	 *  finding hits of them. */
+	void recordSearch(long nodes, long expansions, long searched, long evaluations,
+			long terminals, long probes, long hits, long time) {
+		counters[SEARCHES].increment();
+		counters[NODES].add(nodes);
+		counters[EXPANSIONS].add(expansions);
+		counters[SEARCHED].add(searched);
+		counters[EVALUATIONS].add(evaluations);
+		counters[TERMINALS].add(terminals);
+		counters[PROBES].add(probes);
+		counters[HITS].add(hits);
+		counters[SEARCH_TIME].add(time);
+		if (parent != null)
+			parent.recordSearch(nodes, expansions, searched, evaluations, terminals, probes, hits, time);
+	}
+
+	/** Count states States created by State.expandUpTo in time nanoseconds. */
+	void recordExpansion(long states, long time) {
+		counters[STATES].add(states);
+		counters[EXPAND_TIME].add(time);
+		if (parent != null)
+			parent.recordExpansion(states, time);
+	}
+
+	/** Count a computation of minimax over states States that took time nanoseconds. */
+	void recordMinimax(long states, long time) {
+		counters[MINIMAX_STATES].add(states);
+		counters[MINIMAX_TIME].add(time);
+		if (parent != null)
+			parent.recordMinimax(states, time);
+	}
+
+	/** Count the end of the game whose counters are in this instance,
+	 *  keeping them in the parent as its last game. */
+	void endGame() {
+		games.increment();
+		if (parent != null) {
+			parent.games.increment();
+			parent.lastGame= snapshot();
+		}
+	}
+
+	/** Return the counters of this instance, by name, in the order of
+	 *  SearchStatisticsMXBean, with times in milliseconds. */
+	public Map<String,Long> snapshot() {
+		Map<String,Long> snapshot= new LinkedHashMap<String,Long>();
+		for (int i= 0; i < counters.length; i++)
+			snapshot.put(NAMES[i], i == SEARCH_TIME || i == EXPAND_TIME || i == MINIMAX_TIME
+					? counters[i].sum() / 1000000 : counters[i].sum());
+		return Collections.unmodifiableMap(snapshot);
+	}
+
+	public @Override long getGames() { return games.sum(); }
+	public @Override long getSearches() { return counters[SEARCHES].sum(); }
+	public @Override long getNodes() { return counters[NODES].sum(); }
+	public @Override long getExpansions() { return counters[EXPANSIONS].sum(); }
+	public @Override long getEvaluations() { return counters[EVALUATIONS].sum(); }
+	public @Override long getTerminals() { return counters[TERMINALS].sum(); }
+	public @Override long getTableProbes() { return counters[PROBES].sum(); }
+	public @Override long getTableHits() { return counters[HITS].sum(); }
+	public @Override long getSearchTime() { return counters[SEARCH_TIME].sum() / 1000000; }
+	public @Override long getStatesCreated() { return counters[STATES].sum(); }
+	public @Override long getExpandTime() { return counters[EXPAND_TIME].sum() / 1000000; }
+	public @Override long getMinimaxStates() { return counters[MINIMAX_STATES].sum(); }
+	public @Override long getMinimaxTime() { return counters[MINIMAX_TIME].sum() / 1000000; }
+
+	public @Override double getTableHitRate() {
+		long probes= getTableProbes();
+		return probes == 0 ? 0 : (double)getTableHits() / probes;
+	}
+
+	public @Override double getEffectiveBranchingFactor() {
+		long expansions= getExpansions();
+		return expansions == 0 ? 0 : (double)counters[SEARCHED].sum() / expansions;
+	}
+
+	public @Override Map<String,Long> getLastGame() {
+		return lastGame;
+	}
+
+	public @Override void reset() {
+		for (LongAdder counter : counters)
+			counter.reset();
+		games.reset();
+		lastGame= Collections.emptyMap();
+	}
+
+	/** Return a String representation of the counters of this instance. */
+	public @Override String toString() {
+		return snapshot().toString();
+	}
+}
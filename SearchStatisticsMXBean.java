@@ -0,0 +1,54 @@
+import java.util.Map;
+
+/** The management interface of SearchStatistics, through which JMX clients
+ *  such as jconsole see the counters of the AI searches. Times are in
+ *  milliseconds. */
+public interface SearchStatisticsMXBean {
+	/** Return the number of games that finished since the counters were reset. */
+	long getGames();
+
+	/** Return the number of searches made by alpha-beta Searches. */
+	long getSearches();
+
+	/** Return the number of boards visited by alpha-beta Searches. */
+	long getNodes();
+
+	/** Return the number of boards whose moves a Search went on to search. */
+	long getExpansions();
+
+	/** Return the number of boards valued by an Evaluation at the depth of a search. */
+	long getEvaluations();
+
+	/** Return the number of boards reached by a Search with the game over. */
+	long getTerminals();
+
+	/** Return the number of lookups in transposition tables, and how many found their board. */
+	long getTableProbes();
+	long getTableHits();
+
+	/** Return the fraction of lookups in transposition tables that found their board. */
+	double getTableHitRate();
+
+	/** Return the average number of moves searched on a board that a Search
+	 *  searched the moves of, which alpha-beta keeps far below the 7 of minimax. */
+	double getEffectiveBranchingFactor();
+
+	/** Return the time spent in alpha-beta Searches. */
+	long getSearchTime();
+
+	/** Return the number of States created by State.expandUpTo, and the time spent doing so. */
+	long getStatesCreated();
+	long getExpandTime();
+
+	/** Return the number of States whose minimax was computed by State.computeMinimax,
+	 *  and the time spent doing so. */
+	long getMinimaxStates();
+	long getMinimaxTime();
+
+	/** Return the counters of the last game that finished, those of all of its
+	 *  players together, by name, or an empty map if none has. */
+	Map<String,Long> getLastGame();
+
+	/** Set every counter to 0 and forget the last game. */
+	void reset();
+}
@@ -0,0 +1,293 @@
+/** An instance is a Player that plays perfectly, by solving the game: it finds
+ *  the exact outcome of every board with best play by both players, searching
+ *  to the end of the game rather than to a fixed depth.
+ *  It can also be used on its own to solve boards, e.g. to find the blunders
+ *  of another player.
+ *
+ *  The score of a board is given for the player to move on it:
+ *    - 0 if the game ends in a draw;
+ *    - s > 0 if the player to move wins, with s the number of chips the player
+ *      has left after placing the winning chip (each player has 21 chips),
+ *      plus 1, so that quicker wins score higher;
+ *    - -s < 0 if the opponent wins, with s the same number for the opponent.
+ *  getDistance converts a score to the number of moves until the game ends.
+ *
+ *  The search is a negamax with alpha-beta pruning on a pair of bitboards,
+ *  solved by a series of null-window searches that halve the range of
+ *  possible scores until it is a single score. Moves that let the opponent
+ *  win at once are never searched, the moves that create the most threats of
+ *  four in a row are searched first, and a transposition table keeps bounds
+ *  on the scores of boards already searched. */
+public class Solver extends SynchronousPlayer {
+	/** The number of locations on a board. */
+	private static final int SIZE= Board.NUM_ROWS * Board.NUM_COLS;
+
+	/** The greatest and least scores that the table needs to store: scores
+	 *  outside this range are always found before the table is probed. */
+	private static final int MAX_SCORE= (SIZE + 1) / 2 - 3;
+	private static final int MIN_SCORE= -SIZE / 2 + 3;
+
+	/** The table of bounds on the scores of boards, indexed by position key
+	 *  (see Board.getPositionKey) modulo its length, which is prime. A slot
+	 *  keeps the low 32 bits of its key, which together with the index
+	 *  identify the key, since the length exceeds 2^(49-32). values[i] is
+	 *  0 for an empty slot; an upper bound u is stored as u - MIN_SCORE + 1,
+	 *  and a lower bound l as l + MAX_SCORE - 2*MIN_SCORE + 2. */
+	private final int[] keys;
+	private final byte[] values;
+
+	/** ordered[n] holds the moves of the board with n chips, ordered
+	 *  worst first, and scores[n] the number of locations they make winning. */
+	private final long[][] ordered= new long[SIZE][Board.NUM_COLS];
+	private final int[][] scores= new int[SIZE][Board.NUM_COLS];
+
+	private long nodes; // the number of boards visited since this solver was created
+
+	/** Constructor: a solver for the player with Turn turn whose table uses
+	 *  the number of megabytes given by argument, e.g. "64".
+	 *  Throw an IllegalArgumentException if argument is not an integer >= 1. */
+	public Solver(Turn turn, String argument) {
+		this(parseMegabytes(argument));
+	}
+
+	/** Constructor: a solver whose table uses megabytes megabytes.
+	 *  Throw an IllegalArgumentException if megabytes < 1. */
+	public Solver(int megabytes) {
+		super("Solver-" + megabytes);
+		if (megabytes < 1)
+			throw new IllegalArgumentException("table size must be at least 1 MB");
+		int size= previousPrime((int)Math.min(Integer.MAX_VALUE - 8,
+				(long)megabytes * (1 << 20) / (Integer.BYTES + 1)));
+		keys= new int[size];
+		values= new byte[size];
+	}
+
+	/** Return the number of megabytes represented by argument.
+	 *  Throw an IllegalArgumentException if it is not an integer >= 1. */
+	private static int parseMegabytes(String argument) {
+		try {
+			return Integer.parseInt(argument);
+		} catch (NumberFormatException err) {
+			throw new IllegalArgumentException("the argument of Solver must be the size of its table in MB");
+		}
+	}
+
+	/** Return the largest prime that is at most n. Precondition: n >= 2. */
+	private static int previousPrime(int n) {
+		for (;; n--) {
+			boolean prime= true;
+			for (int d= 2; prime && (long)d * d <= n; d++)
+				prime= n % d != 0;
+			if (prime)
+				return n;
+		}
+	}
+
+	/** Return the best move for board: the one with the greatest score,
+	 *  the most central one if several have it.
+	 *  Precondition: board is not null and has at least one possible move. */
+	public @Override Move getMove(Board board) {
+		long current= getCurrent(board);
+		long mask= current | getOpponent(board);
+		int moves= board.getChipCount();
+		int score= solve(current, mask, moves);
+		// Rather than solving every move, test the moves in turn, with a
+		// null window, for one that achieves the score.
+		long winning= Board.winningLocations(current, mask);
+		long next= nonLosingMoves(current, mask);
+		int best= -1;
+		for (int column : Board.CENTER_ORDER) {
+			long move= Board.playable(mask) & Board.COLUMN_MASK << (column * Board.COLUMN_BITS);
+			if (move == 0)
+				continue;
+			if (best < 0)
+				best= column; // every move loses at once if no other move is found
+			if ((winning & move) != 0)
+				return Move.of(column);
+			if ((winning & Board.playable(mask)) == 0 && (next & move) != 0
+					&& -negamax(current ^ mask, mask | move, moves + 1, -score, -score + 1) >= score)
+				return Move.of(column);
+		}
+		return Move.of(best);
+	}
+
+	/** Return the scores of the moves on board, indexed by column, for the
+	 *  player to move: scores[c] is the score of board for that player if
+	 *  they put a chip in column c, or Integer.MIN_VALUE if column c is full.
+	 *  Precondition: board has at least one possible move. */
+	public int[] analyze(Board board) {
+		int[] scores= new int[Board.NUM_COLS];
+		long current= getCurrent(board);
+		long mask= current | getOpponent(board);
+		int moves= board.getChipCount();
+		for (int c= 0; c < Board.NUM_COLS; c++) {
+			long column= Board.COLUMN_MASK << (c * Board.COLUMN_BITS);
+			long move= Board.playable(mask) & column;
+			if (move == 0)
+				scores[c]= Integer.MIN_VALUE;
+			else if ((Board.winningLocations(current, mask) & move) != 0)
+				scores[c]= (SIZE + 1 - moves) / 2;
+			else
+				scores[c]= -solve(current ^ mask, mask | move, moves + 1);
+		}
+		return scores;
+	}
+
+	/** Return the score of board for the player to move.
+	 *  Precondition: the game is not over on board. */
+	public int solve(Board board) {
+		long current= getCurrent(board);
+		return solve(current, current | getOpponent(board), board.getChipCount());
+	}
+
+	/** Return the number of moves from board until the game ends
+	 *  if board has score score and both players play perfectly. */
+	public static int getDistance(Board board, int score) {
+		int moves= board.getChipCount();
+		if (score > 0) // the player to move places chip number SIZE/2 + 1 - score
+			return 2 * (SIZE / 2 + 1 - score - moves / 2) - 1;
+		if (score < 0) // the opponent does
+			return 2 * (SIZE / 2 + 1 + score - (moves + 1) / 2);
+		return SIZE - moves;
+	}
+
+	/** Return the number of boards visited by this solver so far. */
+	public long getNodeCount() {
+		return nodes;
+	}
+
+	/** Remove all entries from the table of this solver. */
+	public void clear() {
+		java.util.Arrays.fill(values, (byte)0);
+	}
+
+	/** Return the chips of the player to move on board. */
+	private static long getCurrent(Board board) {
+		return board.getChips(board.getPlayerToMove());
+	}
+
+	/** Return the chips of the player who is not to move on board. */
+	private static long getOpponent(Board board) {
+		return board.getChips(board.getPlayerToMove().getNext());
+	}
+
+	/** Return the score of the board on which the player to move has chips
+	 *  current, both players together have chips mask, and moves chips have
+	 *  been placed. Precondition: the game is not over on that board. */
+	private int solve(long current, long mask, int moves) {
+		if ((Board.winningLocations(current, mask) & Board.playable(mask)) != 0)
+			return (SIZE + 1 - moves) / 2;
+		int min= -(SIZE - moves) / 2;
+		int max= (SIZE + 1 - moves) / 2;
+		while (min < max) {
+			// Test whether the score is above med, with med chosen to
+			// look at small scores, which are cheaper to search, first.
+			int med= min + (max - min) / 2;
+			if (med <= 0 && min / 2 < med)
+				med= min / 2;
+			else if (med >= 0 && max / 2 > med)
+				med= max / 2;
+			int r= negamax(current, mask, moves, med, med + 1);
+			if (r <= med)
+				max= r;
+			else
+				min= r;
+		}
+		return min;
+	}
+
+	/** Return the score of the board given by current, mask, and moves as in
+	 *  solve. If the score is at most alpha, the result is an upper bound on it;
+	 *  if it is at least beta, the result is a lower bound on it; otherwise it
+	 *  is the exact score.
+	 *  Precondition: the player to move cannot win with their next chip. */
+	private int negamax(long current, long mask, int moves, int alpha, int beta) {
+		nodes++;
+		long next= nonLosingMoves(current, mask);
+		if (next == 0) // the opponent wins with their next chip
+			return -(SIZE - moves) / 2;
+		if (moves >= SIZE - 2) // neither player can win with their last chips
+			return 0;
+		int min= -(SIZE - 2 - moves) / 2; // the opponent cannot win with their next chip
+		if (alpha < min) {
+			alpha= min;
+			if (alpha >= beta)
+				return alpha;
+		}
+		int max= (SIZE - 1 - moves) / 2; // this player cannot win with their next chip
+		if (beta > max) {
+			beta= max;
+			if (alpha >= beta)
+				return beta;
+		}
+		long key= current + mask;
+		int i= (int)Long.remainderUnsigned(key, keys.length);
+		int value= keys[i] == (int)key ? values[i] : 0;
+		if (value > MAX_SCORE - MIN_SCORE + 1) {
+			min= value + 2 * MIN_SCORE - MAX_SCORE - 2;
+			if (alpha < min) {
+				alpha= min;
+				if (alpha >= beta)
+					return alpha;
+			}
+		} else if (value != 0) {
+			max= value + MIN_SCORE - 1;
+			if (beta > max) {
+				beta= max;
+				if (alpha >= beta)
+					return beta;
+			}
+		}
+
+		// Order the moves by the number of locations they would make winning,
+		// most first, and the center first among equals.
+		long[] ordered= this.ordered[moves];
+		int[] scores= this.scores[moves];
+		int n= 0;
+		for (int c= Board.NUM_COLS - 1; c >= 0; c--) {
+			long move= next & Board.COLUMN_MASK << (Board.CENTER_ORDER[c] * Board.COLUMN_BITS);
+			if (move == 0)
+				continue;
+			int score= Long.bitCount(Board.winningLocations(current | move, mask));
+			int j= n++;
+			for (; j > 0 && scores[j - 1] > score; j--) {
+				scores[j]= scores[j - 1];
+				ordered[j]= ordered[j - 1];
+			}
+			scores[j]= score;
+			ordered[j]= move;
+		}
+		for (int j= n - 1; j >= 0; j--) {
+			int score= -negamax(current ^ mask, mask | ordered[j], moves + 1, -beta, -alpha);
+			if (score >= beta) {
+				store(i, key, score + MAX_SCORE - 2 * MIN_SCORE + 2);
+				return score;
+			}
+			if (score > alpha)
+				alpha= score;
+		}
+		store(i, key, alpha - MIN_SCORE + 1);
+		return alpha;
+	}
+
+	/** Store value for position key key in slot i of the table. */
+	private void store(int i, long key, int value) {
+		keys[i]= (int)key;
+		values[i]= (byte)value;
+	}
+
+	/** Return the possible locations where the player to move, who has chips
+	 *  current when mask is occupied, can place a chip without letting the
+	 *  opponent win with their next chip. */
+	private static long nonLosingMoves(long current, long mask) {
+		long possible= Board.playable(mask);
+		long threats= Board.winningLocations(current ^ mask, mask);
+		long forced= possible & threats;
+		if (forced != 0) {
+			if ((forced & (forced - 1)) != 0)
+				return 0; // the opponent has two threats, so this player cannot stop both
+			possible= forced;
+		}
+		return possible & ~(threats >>> 1); // do not play just below a threat
+	}
+}
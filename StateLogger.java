@@ -32,6 +32,9 @@ public class StateLogger implements Logger, MultilinePrinter {
         if (this.turn == turn)
             try {
                 ai= (AI)player;
+                if (!ai.hasStates())
+                    throw new IllegalArgumentException("Can log states only for AI players"
+                            + " that search with States");
             } catch (ClassCastException err) {
                 throw new IllegalArgumentException("Can log states only for AI players");
             }
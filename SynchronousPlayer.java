@@ -1,7 +1,14 @@
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Consumer;
 
 /** A player that supplies moves synchronously for a Connect Four game. */
 public abstract class SynchronousPlayer extends Player {
+	/** The thread that requested moves are found on, or null until one is requested. */
+	private ExecutorService mover;
+
 	/** Construct a SynchronousPlayer whose name is name. */
 	protected SynchronousPlayer(String name) {
 		super(name);
@@ -10,6 +17,41 @@ public abstract class SynchronousPlayer extends Player {
 	/** Return this Player's move for board.
 	 *  Precondition: board is not null and has at least one possible move. */
 	protected abstract Move getMove(Board board);
+
+	/** Return this Player's move for the board of request.
+	 *  By default, this is getMove(board), which ignores the deadline and
+	 *  cancellation of request; players that can stop early override it.
+	 *  Precondition: the board of request has at least one possible move. */
+	protected Move getMove(MoveRequest request) {
+		return getMove(request.getBoard());
+	}
+
+	/** Find the move for request on this player's own thread, so that the UI
+	 *  can give up waiting for it. Moves are found one at a time, in the order
+	 *  requested, and the thread does not keep the program running. */
+	public @Override CompletableFuture<Move> requestMove(MoveRequest request) {
+		if (mover == null)
+			mover= Executors.newSingleThreadExecutor((Runnable task) -> {
+				Thread thread= new Thread(task, getName());
+				thread.setDaemon(true);
+				return thread;
+			});
+		return CompletableFuture.supplyAsync(() -> getMove(request), mover);
+	}
+
+	/** Wait until the thread that moves are found on has found every move
+	 *  requested so far, even those whose futures the UI has cancelled. */
+	public @Override void awaitMoves() {
+		if (mover == null)
+			return;
+		try {
+			mover.submit(() -> { }).get();
+		} catch (InterruptedException err) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException err) {
+			throw new RuntimeException(err.getCause());
+		}
+	}
 	
 	/** Get the move for this player and use it synchronously. */
 	public @Override final Async<Move> getAsyncMove(Board board) {
@@ -0,0 +1,450 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/** An instance is an endgame tablebase: the exact score (as defined by Solver)
+ *  of every board that can be reached from some root board and has at most
+ *  a given number of empty locations, made by running this class.
+ *  A board and its mirror image share one entry, keyed by the board's
+ *  canonical key (see Board.getCanonicalKey).
+ *
+ *  The file holds a header with the root, a PerfectHash of the canonical keys,
+ *  and for each index of the hash a 16-bit record: a 10-bit fingerprint of the
+ *  key at that index and the score + 21. The file is memory-mapped, so probing
+ *  a board costs one hash lookup. A board without the chips of the root (or of
+ *  its mirror image) is not in the tablebase, and probing it returns UNKNOWN
+ *  at once. Any other board that is not in the tablebase is recognized by its
+ *  fingerprint, except for one board in 1024.
+ *
+ *  The generator enumerates the boards one number of chips at a time, from
+ *  the root forwards, keeping each layer on disk as a sorted file of keys
+ *  (external sorting: sorted runs, then a merge). It then solves the layers
+ *  backwards from the last, each board's score following from the scores of
+ *  its children in the next layer, which are found by binary search in the
+ *  memory-mapped layer below. Both phases use all the threads they are given,
+ *  and neither holds a layer in memory, so only the perfect hash, at about
+ *  3 bits per board, has to fit in the heap. */
+public class Tablebase {
+	/** The first long of every tablebase file. */
+	private static final long MAGIC= 0x433454424153453aL; // "C4TBASE:"
+
+	/** The score of a board that is not in the tablebase. */
+	public static final int UNKNOWN= Integer.MIN_VALUE;
+
+	/** The number of locations on a board, which is the greatest number of moves. */
+	private static final int SIZE= Board.NUM_ROWS * Board.NUM_COLS;
+
+	/** The amount added to a score to make it fit in the 6 bits of a record. */
+	private static final int SCORE_OFFSET= SIZE / 2;
+
+	/** The number of longs in the header of a file: MAGIC, the empties, the
+	 *  number of boards, the length of the hash, and the chips of each player
+	 *  on the root. */
+	private static final int HEADER= 6;
+
+	private final int empties; // the greatest number of empty locations of the boards in this tablebase
+	private final Board root; // the board from which the boards in this tablebase were reached
+	private final Board mirroredRoot; // the mirror image of root
+	private final PerfectHash hash; // the index of the record of each board
+	private final ShortBuffer records; // the records, indexed by hash
+
+	/** Constructor: the tablebase in the file at path.
+	 *  Throw an IOException if it cannot be read or is not a tablebase. */
+	public Tablebase(String path) throws IOException {
+		try (FileChannel channel= FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+			LongBuffer header= channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(), HEADER * Long.BYTES)).asLongBuffer();
+			if (header.limit() < HEADER || header.get(0) != MAGIC)
+				throw new IOException(path + " is not a tablebase");
+			empties= (int)header.get(1);
+			long count= header.get(2);
+			long hashBytes= header.get(3) * Long.BYTES;
+			if (channel.size() != HEADER * Long.BYTES + hashBytes + count * Short.BYTES
+					|| (header.get(4) & header.get(5)) != 0)
+				throw new IOException(path + " is not a tablebase");
+			root= new Board(header.get(4), header.get(5));
+			mirroredRoot= Board.fromPositionKey(Board.mirrorPositionKey(root.getPositionKey()));
+			hash= PerfectHash.read(map(channel, HEADER * Long.BYTES, hashBytes).asLongBuffer());
+			records= map(channel, HEADER * Long.BYTES + hashBytes, count * Short.BYTES).asShortBuffer();
+		}
+	}
+
+	/** Return the greatest number of empty locations of the boards in this tablebase. */
+	public int getEmpties() {
+		return empties;
+	}
+
+	/** Return the board from which the boards in this tablebase were reached. */
+	public Board getRoot() {
+		return root;
+	}
+
+	/** Return the number of boards in this tablebase, counting a board
+	 *  and its mirror image once. */
+	public long size() {
+		return records.limit();
+	}
+
+	/** Return the score of board for the player to move on it, as defined
+	 *  by Solver, or UNKNOWN if board is not in this tablebase.
+	 *  Precondition: the game is not over on board. */
+	public int probe(Board board) {
+		if (SIZE - board.getChipCount() > empties || !extend(board, root) && !extend(board, mirroredRoot))
+			return UNKNOWN;
+		long key= board.getCanonicalKey();
+		long i= hash.index(key);
+		if (i < 0 || i >= records.limit())
+			return UNKNOWN;
+		int record= records.get((int)i) & 0xffff;
+		if (record >>> 6 != fingerprint(key))
+			return UNKNOWN;
+		return (record & 63) - SCORE_OFFSET;
+	}
+
+	/** Return the best move for the player to move on board according to this
+	 *  tablebase: the one with the greatest score, the most central one if
+	 *  several have it. Return null if the tablebase does not have every
+	 *  board that a move leads to.
+	 *  Precondition: board has at least one possible move. */
+	public Move getMove(Board board) {
+		Turn player= board.getPlayerToMove();
+		int best= -1;
+		int bestScore= UNKNOWN;
+		for (int column : Board.CENTER_ORDER) {
+			if (board.columnIsFull(column))
+				continue;
+			Board child= new Board(board, player, Move.of(column));
+			if (child.hasConnectFour() != null)
+				return Move.of(column);
+			int score= child.isFull() ? 0 : probe(child);
+			if (score == UNKNOWN)
+				return null;
+			if (best < 0 || -score > bestScore) {
+				best= column;
+				bestScore= -score;
+			}
+		}
+		return Move.of(best);
+	}
+
+	/** Indicate whether board has every chip of root, for the same player. */
+	private static boolean extend(Board board, Board root) {
+		return (root.getChips(Turn.FIRST) & ~board.getChips(Turn.FIRST)) == 0
+				&& (root.getChips(Turn.SECOND) & ~board.getChips(Turn.SECOND)) == 0;
+	}
+
+	/** Return the fingerprint of canonical key key kept in its record. */
+	private static int fingerprint(long key) {
+		return (int)(PerfectHash.mix(~key) >>> 54);
+	}
+
+	/** Return the length bytes of channel from offset on, memory-mapped.
+	 *  Throw an IOException if they are too many to map at once. */
+	private static ByteBuffer map(FileChannel channel, long offset, long length) throws IOException {
+		if (length > Integer.MAX_VALUE)
+			throw new IOException("a part of the file is too large to map; use a later root");
+		return channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+	}
+
+	/** Write the tablebase of the boards reachable from ROOT with at most
+	 *  EMPTIES empty locations to the file FILE.
+	 *  Arguments are ROOT EMPTIES FILE [threads:N]. */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 3) {
+			System.out.println("Format is ROOT EMPTIES FILE [threads:N]");
+			System.out.println("Writes to FILE the score of every board with at most EMPTIES empty");
+			System.out.println("locations that can be reached from ROOT, the columns (0 to 6) of the");
+			System.out.println("moves from the empty board to the root, e.g. 3323, or - for the empty board.");
+			System.out.println("N threads (default: all processors) enumerate and solve the boards.");
+			System.out.println("The number of boards grows very quickly with EMPTIES, so unless the root");
+			System.out.println("is well into the game, keep EMPTIES small.");
+			return;
+		}
+		Board root= args[0].equals("-") ? new Board() : Board.fromMoves(args[0], "ROOT");
+		if (root.hasConnectFour() != null || root.isFull())
+			throw new IllegalArgumentException("the game is over at ROOT");
+		int empties= Integer.parseInt(args[1]);
+		if (empties < 1 || empties > SIZE)
+			throw new IllegalArgumentException("EMPTIES must be in 1.." + SIZE);
+		int threads= Runtime.getRuntime().availableProcessors();
+		for (int i= 3; i < args.length; i++) {
+			if (!args[i].startsWith("threads:"))
+				throw new IllegalArgumentException("unknown option " + args[i]);
+			threads= Integer.parseInt(args[i].substring(8));
+		}
+		Path file= Paths.get(args[2]).toAbsolutePath();
+		Path work= Files.createTempDirectory(file.getParent(), "tablebase");
+		ForkJoinPool pool= new ForkJoinPool(threads);
+		try {
+			new Generator(root, empties, work, pool).run(file);
+		} finally {
+			pool.shutdown();
+			try (java.util.stream.Stream<Path> files= Files.list(work)) {
+				for (Path p : (Iterable<Path>)files::iterator)
+					Files.delete(p);
+			}
+			Files.delete(work);
+		}
+	}
+
+	/** The state of the generation of a tablebase. Layer n is the set of
+	 *  boards with n chips, none of them with the game over, as a file of
+	 *  their sorted canonical keys and, once solved, a file of their scores. */
+	private static class Generator {
+		/** The number of boards whose children one task enumerates, or that one task solves. */
+		private static final int CHUNK= 1 << 18;
+
+		private final Board root; // the board from which the boards are reached
+		private final int empties; // the greatest number of empty locations of the boards kept
+		private final Path work; // the directory of the layer files
+		private final ForkJoinPool pool; // the threads that enumerate and solve
+
+		/** Constructor: a generator of the tablebase for root and empties
+		 *  that keeps its files in work and runs on pool. */
+		Generator(Board root, int empties, Path work, ForkJoinPool pool) {
+			this.root= root;
+			this.empties= empties;
+			this.work= work;
+			this.pool= pool;
+		}
+
+		/** Return the file of the keys of layer n. */
+		private Path keys(int n) {
+			return work.resolve("keys-" + n);
+		}
+
+		/** Return the file of the scores of layer n. */
+		private Path scores(int n) {
+			return work.resolve("scores-" + n);
+		}
+
+		/** Generate the tablebase and write it to file. */
+		void run(Path file) throws IOException {
+			int first= root.getChipCount();
+			try (DataOutputStream out= output(keys(first))) {
+				out.writeLong(root.getCanonicalKey());
+			}
+			int last= first;
+			long start= System.nanoTime();
+			while (last < SIZE && Files.size(keys(last)) > 0) {
+				enumerate(last);
+				if (SIZE - last > empties)
+					Files.delete(keys(last));
+				last++;
+				System.out.println("layer " + last + ": " + Files.size(keys(last)) / Long.BYTES
+						+ " boards after " + (System.nanoTime() - start) / 1000000 + "ms");
+			}
+			int low= Math.max(first, SIZE - empties); // the first layer kept
+			for (int n= last; n >= low; n--) {
+				solve(n);
+				System.out.println("solved layer " + n + " after " + (System.nanoTime() - start) / 1000000 + "ms");
+			}
+			write(file, low, last);
+			System.out.println("wrote " + file + " after " + (System.nanoTime() - start) / 1000000 + "ms");
+		}
+
+		/** Write the keys of layer n + 1: the children of the boards of layer n
+		 *  on which the game is not over. Each task writes a sorted run of
+		 *  the children of a chunk of the layer, and then the runs are merged. */
+		private void enumerate(int n) throws IOException {
+			LongBuffer parents= mapKeys(n);
+			Turn player= n % 2 == 0 ? Turn.FIRST : Turn.SECOND;
+			List<ForkJoinTask<Path>> tasks= new ArrayList<ForkJoinTask<Path>>();
+			for (int from= 0; from < parents.limit(); from+= CHUNK) {
+				int start= from;
+				int end= Math.min(parents.limit(), from + CHUNK);
+				Path run= work.resolve("run-" + (n + 1) + "-" + tasks.size());
+				tasks.add(pool.submit(() -> {
+					long[] children= new long[(end - start) * Board.NUM_COLS];
+					int count= 0;
+					for (int i= start; i < end; i++) {
+						Board board= Board.fromPositionKey(parents.get(i));
+						for (int moves= board.getMoveMask(); moves != 0; moves&= moves - 1) {
+							Board child= new Board(board, player, Move.of(Integer.numberOfTrailingZeros(moves)));
+							if (child.hasConnectFour() == null && !child.isFull())
+								children[count++]= child.getCanonicalKey();
+						}
+					}
+					Arrays.sort(children, 0, count);
+					try (DataOutputStream out= output(run)) {
+						for (int i= 0; i < count; i++)
+							if (i == 0 || children[i] != children[i - 1])
+								out.writeLong(children[i]);
+					}
+					return run;
+				}));
+			}
+			List<Path> runs= new ArrayList<Path>();
+			for (ForkJoinTask<Path> task : tasks)
+				runs.add(task.join());
+			merge(runs, keys(n + 1));
+			for (Path run : runs)
+				Files.delete(run);
+		}
+
+		/** Merge runs, files of sorted longs, into one file of sorted longs
+		 *  without duplicates at to. */
+		private static void merge(List<Path> runs, Path to) throws IOException {
+			List<DataInputStream> ins= new ArrayList<DataInputStream>();
+			// The heap holds the next long of each run, and which run it is from.
+			PriorityQueue<long[]> heap= new PriorityQueue<long[]>((a, b) -> Long.compare(a[0], b[0]));
+			try (DataOutputStream out= output(to)) {
+				for (Path run : runs) {
+					ins.add(new DataInputStream(new BufferedInputStream(Files.newInputStream(run), 1 << 16)));
+					advance(heap, ins, ins.size() - 1);
+				}
+				boolean any= false;
+				long previous= 0;
+				while (!heap.isEmpty()) {
+					long[] next= heap.poll();
+					if (!any || next[0] != previous)
+						out.writeLong(next[0]);
+					any= true;
+					previous= next[0];
+					advance(heap, ins, (int)next[1]);
+				}
+			} finally {
+				for (DataInputStream in : ins)
+					in.close();
+			}
+		}
+
+		/** Add the next long of run i of ins, if any, to heap. */
+		private static void advance(PriorityQueue<long[]> heap, List<DataInputStream> ins, int i) throws IOException {
+			try {
+				heap.add(new long[] {ins.get(i).readLong(), i});
+			} catch (EOFException err) {
+				// the run is exhausted
+			}
+		}
+
+		/** Write the scores of layer n, given those of layer n + 1. */
+		private void solve(int n) throws IOException {
+			LongBuffer keys= mapKeys(n);
+			LongBuffer childKeys= n + 1 < SIZE && Files.exists(keys(n + 1)) ? mapKeys(n + 1) : LongBuffer.allocate(0);
+			ByteBuffer childScores= childKeys.limit() == 0 ? ByteBuffer.allocate(0) : map(scores(n + 1));
+			Turn player= n % 2 == 0 ? Turn.FIRST : Turn.SECOND;
+			try (FileChannel out= FileChannel.open(scores(n), StandardOpenOption.CREATE,
+					StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+				List<ForkJoinTask<?>> tasks= new ArrayList<ForkJoinTask<?>>();
+				for (int from= 0; from < keys.limit(); from+= CHUNK) {
+					int start= from;
+					int end= Math.min(keys.limit(), from + CHUNK);
+					tasks.add(pool.submit(() -> {
+						byte[] scores= new byte[end - start];
+						for (int i= start; i < end; i++)
+							scores[i - start]= (byte)score(Board.fromPositionKey(keys.get(i)), player, childKeys, childScores);
+						ByteBuffer buffer= ByteBuffer.wrap(scores);
+						for (long position= start; buffer.hasRemaining(); )
+							position+= out.write(buffer, position);
+						return null;
+					}));
+				}
+				for (ForkJoinTask<?> task : tasks)
+					task.join();
+			}
+		}
+
+		/** Return the score of board for player, the player to move on it, given
+		 *  the sorted canonical keys of the next layer and their scores. */
+		private static int score(Board board, Turn player, LongBuffer childKeys, ByteBuffer childScores) {
+			int best= -SIZE;
+			for (int moves= board.getMoveMask(); moves != 0; moves&= moves - 1) {
+				Board child= new Board(board, player, Move.of(Integer.numberOfTrailingZeros(moves)));
+				if (child.hasConnectFour() != null)
+					return (SIZE + 1 - board.getChipCount()) / 2;
+				int score= child.isFull() ? 0 : -childScores.get(find(childKeys, child.getCanonicalKey()));
+				best= Math.max(best, score);
+			}
+			return best;
+		}
+
+		/** Return the index of key in keys, which are sorted.
+		 *  Throw an IllegalStateException if it is not there. */
+		private static int find(LongBuffer keys, long key) {
+			int low= 0;
+			int high= keys.limit() - 1;
+			while (low <= high) {
+				int mid= (low + high) >>> 1;
+				long k= keys.get(mid);
+				if (k < key)
+					low= mid + 1;
+				else if (k > key)
+					high= mid - 1;
+				else
+					return mid;
+			}
+			throw new IllegalStateException("a child is missing from its layer");
+		}
+
+		/** Write the tablebase of layers low..last to file. */
+		private void write(Path file, int low, int last) throws IOException {
+			long count= 0;
+			for (int n= low; n <= last; n++)
+				count+= Files.size(keys(n)) / Long.BYTES;
+			PerfectHash hash= PerfectHash.build(action -> {
+				for (int n= low; n <= last; n++) {
+					LongBuffer keys= mapKeys(n);
+					for (int i= 0; i < keys.limit(); i++)
+						action.accept(keys.get(i));
+				}
+			}, count);
+			try (DataOutputStream out= output(file)) {
+				out.writeLong(MAGIC);
+				out.writeLong(empties);
+				out.writeLong(count);
+				out.writeLong(hash.getLength());
+				out.writeLong(root.getChips(Turn.FIRST));
+				out.writeLong(root.getChips(Turn.SECOND));
+				hash.write(out);
+			}
+			long offset= Files.size(file);
+			if (count * Short.BYTES > Integer.MAX_VALUE)
+				throw new IOException("too many boards to map; use a later root or fewer empties");
+			try (FileChannel channel= FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+				ShortBuffer records= channel.map(FileChannel.MapMode.READ_WRITE, offset, count * Short.BYTES).asShortBuffer();
+				for (int n= low; n <= last; n++) {
+					LongBuffer keys= mapKeys(n);
+					ByteBuffer scores= map(scores(n));
+					for (int i= 0; i < keys.limit(); i++) {
+						long key= keys.get(i);
+						records.put((int)hash.index(key), (short)(fingerprint(key) << 6 | scores.get(i) + SCORE_OFFSET));
+					}
+				}
+			}
+		}
+
+		/** Return the keys of layer n, memory-mapped. */
+		private LongBuffer mapKeys(int n) throws IOException {
+			return map(keys(n)).asLongBuffer();
+		}
+
+		/** Return the whole of file, memory-mapped. */
+		private static ByteBuffer map(Path file) throws IOException {
+			try (FileChannel channel= FileChannel.open(file, StandardOpenOption.READ)) {
+				return Tablebase.map(channel, 0, channel.size());
+			}
+		}
+
+		/** Return a buffered stream writing to file. */
+		private static DataOutputStream output(Path file) throws IOException {
+			return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+		}
+	}
+}
@@ -0,0 +1,108 @@
+/** A fixed-size table of the results of searching boards, so that a board
+ *  reached again by a different order of moves need not be searched again.
+ *  Entries are kept in parallel primitive arrays, indexed by the low bits of
+ *  the board's Zobrist key, so the table allocates nothing after construction.
+ *  Slots come in pairs: the first keeps the entry searched to the greatest
+ *  depth, and the second always takes the newest entry, so deep results
+ *  survive while boards from earlier moves of the game still get replaced.
+ *  The table may be shared by searches on several threads without locking:
+ *  each slot stores its key xor its entry, so a slot whose key and entry
+ *  were written by different threads at once matches no key and is a miss. */
+public class TranspositionTable {
+	/** The stored value is exactly the value of the board. */
+	public static final int EXACT= 1;
+	/** The value of the board is at least the stored value. */
+	public static final int LOWER= 2;
+	/** The value of the board is at most the stored value. */
+	public static final int UPPER= 3;
+
+	/** The number of bytes used by each entry. */
+	private static final int ENTRY_BYTES= Long.BYTES + Integer.BYTES;
+
+	/** Values at least this far from 0 are wins or losses, which are stored
+	 *  relative to the board rather than to the root of the search. */
+	private static final int WIN_BOUND= Search.WIN - 2 * Board.NUM_ROWS * Board.NUM_COLS;
+
+	private final long[] keys; // keys[i] is the Zobrist key of the board in slot i xor entries[i]
+	/** entries[i] packs the result for slot i: bits 0..2 hold the best move's
+	 *  column + 1 (0 if none), bits 3..4 the bound (0 for an empty slot),
+	 *  bits 5..10 the depth, and bits 11..31 the value. */
+	private final int[] entries;
+	private final int mask; // keys.length - 1, a mask for slot indices
+
+	/** Constructor: an empty table using at most megabytes megabytes.
+	 *  Throw an IllegalArgumentException if megabytes < 1. */
+	public TranspositionTable(int megabytes) {
+		if (megabytes < 1)
+			throw new IllegalArgumentException("table size must be at least 1 MB");
+		long size= Long.highestOneBit((long)megabytes * (1 << 20) / ENTRY_BYTES);
+		size= Math.min(size, 1 << 30);
+		keys= new long[(int)size];
+		entries= new int[(int)size];
+		mask= (int)size - 1;
+	}
+
+	/** Return the packed entry for the board with Zobrist key key,
+	 *  or 0 if there is none. Use getBound, getDepth, getValue, and getColumn
+	 *  to unpack it. */
+	public int probe(long key) {
+		int i= (int)key & mask & ~1;
+		int entry= entries[i];
+		if (entry != 0 && (keys[i] ^ entry) == key)
+			return entry;
+		entry= entries[i + 1];
+		if (entry != 0 && (keys[i + 1] ^ entry) == key)
+			return entry;
+		return 0;
+	}
+
+	/** Record that the board with Zobrist key key, searched depth moves ahead
+	 *  and reached ply moves into the search, has value value with bound bound
+	 *  (EXACT, LOWER, or UPPER), and that column is its best move (-1 if unknown). */
+	public void store(long key, int depth, int ply, int value, int bound, int column) {
+		if (value >= WIN_BOUND)
+			value+= ply;
+		else if (value <= -WIN_BOUND)
+			value-= ply;
+		int entry= value << 11 | depth << 5 | bound << 3 | (column + 1);
+		int i= (int)key & mask & ~1;
+		int old= entries[i];
+		if (old == 0 || (keys[i] ^ old) == key || depth >= getDepth(old)) {
+			keys[i]= key ^ entry;
+			entries[i]= entry;
+		} else {
+			keys[i + 1]= key ^ entry;
+			entries[i + 1]= entry;
+		}
+	}
+
+	/** Remove all entries from this table. */
+	public void clear() {
+		java.util.Arrays.fill(entries, 0);
+	}
+
+	/** Return the bound of entry: EXACT, LOWER, or UPPER. */
+	public static int getBound(int entry) {
+		return entry >>> 3 & 3;
+	}
+
+	/** Return the depth that the board of entry was searched to. */
+	public static int getDepth(int entry) {
+		return entry >>> 5 & 63;
+	}
+
+	/** Return the value of entry for a board reached ply moves into the search. */
+	public static int getValue(int entry, int ply) {
+		int value= entry >> 11;
+		if (value >= WIN_BOUND)
+			return value - ply;
+		if (value <= -WIN_BOUND)
+			return value + ply;
+		return value;
+	}
+
+	/** Return the column of the best move of entry, or -1 if it is unknown. */
+	public static int getColumn(int entry) {
+		return (entry & 7) - 1;
+	}
+}
@@ -1,11 +1,21 @@
 import java.lang.reflect.InvocationTargetException;
 import java.util.EnumMap;
 import java.util.Map.Entry;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 /** A user interface for running, displaying, and interacting with a Connect Four game. */
 public abstract class UI {
+    /** The time that a player is given to answer once its request has been
+     *  cancelled at the deadline, in nanoseconds, so that it can answer with
+     *  the best move it has. */
+    private static final long GRACE= 100000000L;
+
     // the players of the game
     protected EnumMap<Turn,Player> players= new EnumMap<Turn,Player>(Turn.class);
     private Board board= new Board(); // the current board for the game
@@ -16,6 +26,13 @@ public abstract class UI {
         public @Override void gameOver(Player winner) { }
         public @Override void registerPlayer(Turn turn, Player player) { }
     };
+    // the time each player has for a move, in nanoseconds, or 0 for no limit
+    private long moveTimeLimit= 0;
+    private volatile boolean aborted= false; // true once the game has been aborted
+    // the request for the move being waited for and the player's answer to it,
+    // or null if no move is being waited for
+    private volatile MoveRequest request= null;
+    private volatile CompletableFuture<Move> answer= null;
 
     /** Look up a class implementing Player with name player.
      *  Construct an instance of that class
@@ -38,46 +55,141 @@ public abstract class UI {
         this.logger= logger;
     }
 
-    /** Run the Connect Four game. */
+    /** Give each player at most nanoseconds nanoseconds for each move
+     *  (0 for no limit). A player that has not answered by then has its
+     *  request cancelled, and its best move so far is played instead.
+     *  Throw an IllegalArgumentException if nanoseconds < 0. */
+    public final void setMoveTimeLimit(long nanoseconds) {
+        if (nanoseconds < 0)
+            throw new IllegalArgumentException("the move time limit must not be negative");
+        moveTimeLimit= nanoseconds;
+    }
+
+    /** Abort the game: cancel the request for the move being waited for, so
+     *  that the player stops thinking, and make no more moves.
+     *  This may be called on any thread. */
+    public final void abortGame() {
+        aborted= true;
+        MoveRequest request= this.request;
+        CompletableFuture<Move> answer= this.answer;
+        if (request != null)
+            request.cancel();
+        if (answer != null)
+            answer.cancel(false);
+    }
+
+    /** Run the Connect Four game. The work of the players' searches in it is
+     *  counted in SearchStatistics of its own, which end with the game. */
     public final void runGame() {
+        SearchStatistics statistics= new SearchStatistics(SearchStatistics.getGlobal());
+        for (Player player : players.values())
+            player.startGame(statistics);
         for (Entry<Turn,Player> entry : players.entrySet())
             logger.registerPlayer(entry.getKey(), entry.getValue());
         logger.start(board);
         start(board);
-        players.get(Turn.FIRST).getAsyncMove(board).async(new Consumer<Move>() {
+        requestMove(Turn.FIRST, new Consumer<Move>() {
             Turn turn = Turn.FIRST;
 
             public @Override void accept(Move move) {
                 final Consumer<Move> driver= this;
+                if (move == null) { // the game was aborted
+                    gameAborted();
+                    return;
+                }
                 board = makeMove(board, turn, move);
                 UI.this.<Void>doLongTask(() -> {
-                    for (Player player : players.values())
+                    for (Player player : players.values()) {
+                        player.awaitMoves(); // a player given up on may still be thinking
                         player.observeMove(board, turn, move);
+                    }
                     logger.observeMove(board, turn, move);
                     return null;
                 }).async((Void v) -> {
                     turn= turn.getNext();
                     if (board.isFull()) {
+                        statistics.endGame();
                         gameOver(null);
                         return;
                     }
                     Turn winner= board.hasConnectFour();
                     if (winner != null) {
+                        statistics.endGame();
                         logger.gameOver(players.get(winner));
                         gameOver(players.get(winner));
                         return;
                     }
-                    doLongTask(() -> {
-                        return players.get(turn).getAsyncMove(board);
-                    }).async((Async<Move> async) -> {
-                        async.async(driver);
-                    });
+                    if (aborted) {
+                        gameAborted();
+                        return;
+                    }
+                    requestMove(turn, driver);
                 });
                 return;
             }
         });
     }
 
+    /** Request the move of the player with Turn turn on the current board,
+     *  and call driver with it on the event thread (with null if the game
+     *  is aborted first). Precondition: this is called on the event thread. */
+    private void requestMove(Turn turn, Consumer<Move> driver) {
+        MoveRequest request= new MoveRequest(board, moveTimeLimit == 0
+                ? MoveRequest.NO_DEADLINE : System.nanoTime() + moveTimeLimit);
+        this.request= request;
+        CompletableFuture<Move> answer= players.get(turn).requestMove(request);
+        this.answer= answer;
+        if (aborted) // abortGame may have missed the request
+            abortGame();
+        UI.this.<Move>doLongTask(() -> awaitMove(request, answer)).async(driver);
+    }
+
+    /** Wait for answer, the player's answer to request, and return the move.
+     *  If the deadline of request passes first, cancel request, give the
+     *  player GRACE more to answer, and then give up on it: cancel answer and
+     *  return the best move so far of request, or if there is none, the first
+     *  possible move. The player may go on thinking, so runGame waits for it
+     *  (see Player.awaitMoves) before telling it of the move.
+     *  Return null if the game is aborted meanwhile. */
+    private Move awaitMove(MoveRequest request, CompletableFuture<Move> answer) {
+        Move move= null;
+        try {
+            if (request.getDeadline() == MoveRequest.NO_DEADLINE)
+                move= answer.get();
+            else {
+                try {
+                    move= answer.get(request.getTimeLeft(), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException err) {
+                    request.cancel();
+                    try {
+                        move= answer.get(GRACE, TimeUnit.NANOSECONDS);
+                    } catch (TimeoutException err2) {
+                        answer.cancel(false);
+                    }
+                }
+            }
+        } catch (CancellationException err) {
+            // the game was aborted, which is handled below
+        } catch (InterruptedException err) {
+            Thread.currentThread().interrupt();
+            aborted= true;
+        } catch (ExecutionException err) {
+            if (err.getCause() instanceof RuntimeException)
+                throw (RuntimeException)err.getCause();
+            throw new RuntimeException(err.getCause());
+        } finally {
+            this.request= null;
+            this.answer= null;
+        }
+        if (aborted)
+            return null;
+        if (move == null)
+            move= request.getBestSoFar();
+        if (move == null)
+            move= request.getBoard().getPossibleMoves()[0];
+        return move;
+    }
+
     /** Do a long task. If appropriate, do it on a separate thread. */
     protected abstract <T> Async<T> doLongTask(Supplier<T> task);
 
@@ -91,4 +203,7 @@ public abstract class UI {
     /** Display the end of the game, with winner as the victor.
      *  If winner is null, then the game ended in a tie. */
     protected abstract void gameOver(Player winner);
+
+    /** Display that the game was aborted (see abortGame). By default, do nothing. */
+    protected void gameAborted() { }
 }
@@ -0,0 +1,60 @@
+package connectfour;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmarks of AI.getMove, which is a whole search, with a tree of States
+ *  or with alpha-beta, on every eighth of the Positions in turn. An AI keeps
+ *  its tree or table from move to move, so before each move it is cleared,
+ *  which forgets them. The AIs and their tables are made once, so
+ *  neither the time nor the allocation includes making them. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations= 3, time= 2)
+@Measurement(iterations= 5, time= 2)
+@Fork(1)
+@State(Scope.Thread)
+public class AIBenchmark {
+	@Param({"4", "6", "ab:8", "ab:12"})
+	public String argument;
+
+	private Board[] boards; // the boards to move on
+	private AI[] ais; // ais[t] is the AI whose turn has ordinal t
+	private int next; // the index in boards of the board of the next move
+	private Board board; // the board of the next move
+	private AI ai; // the AI to move on board
+
+	@Setup
+	public void setUp() {
+		Board[] positions= Positions.create();
+		boards= new Board[positions.length / 8];
+		for (int i= 0; i < boards.length; i++)
+			boards[i]= positions[8 * i];
+		ais= new AI[] {new AI(Turn.FIRST, argument), new AI(Turn.SECOND, argument)};
+	}
+
+	@Setup(Level.Invocation)
+	public void nextMove() {
+		board= boards[next];
+		next= (next + 1) % boards.length;
+		ai= ais[board.getPlayerToMove().ordinal()];
+		ai.clear();
+	}
+
+	@Benchmark
+	public Move getMove() {
+		return ai.getMove(board);
+	}
+}
@@ -0,0 +1,68 @@
+package connectfour;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Benchmarks of the operations of Board that searches do for every board
+ *  they visit. Each runs over all of the Positions, and the time is per board.
+ *  State.computeBoardValue was replaced by Board.getLineScore, which is
+ *  measured in its place. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations= 3, time= 1)
+@Measurement(iterations= 5, time= 1)
+@Fork(1)
+@State(Scope.Thread)
+@OperationsPerInvocation(Positions.COUNT)
+public class BoardBenchmark {
+	private Board[] boards; // the positions
+	private Turn[] players; // players[i] is the player to move on boards[i]
+	private Move[] moves; // moves[i] is a possible move on boards[i]
+
+	@Setup
+	public void setUp() {
+		boards= Positions.create();
+		players= new Turn[boards.length];
+		moves= new Move[boards.length];
+		for (int i= 0; i < boards.length; i++) {
+			players[i]= boards[i].getPlayerToMove();
+			moves[i]= boards[i].getPossibleMoves()[0];
+		}
+	}
+
+	@Benchmark
+	public void hasConnectFour(Blackhole blackhole) {
+		for (Board board : boards)
+			blackhole.consume(board.hasConnectFour());
+	}
+
+	@Benchmark
+	public void getPossibleMoves(Blackhole blackhole) {
+		for (Board board : boards)
+			blackhole.consume(board.getPossibleMoves());
+	}
+
+	@Benchmark
+	public void newBoard(Blackhole blackhole) {
+		for (int i= 0; i < boards.length; i++)
+			blackhole.consume(new Board(boards[i], players[i], moves[i]));
+	}
+
+	@Benchmark
+	public void getLineScore(Blackhole blackhole) {
+		for (int i= 0; i < boards.length; i++)
+			blackhole.consume(boards[i].getLineScore(players[i]));
+	}
+}
@@ -0,0 +1,28 @@
+package connectfour;
+
+/** The boards that the benchmarks run on. They are the same in every run,
+ *  so that runs before and after a change are comparable. */
+final class Positions {
+	/** The number of boards. */
+	static final int COUNT= 64;
+
+	private Positions() { }
+
+	/** Return COUNT boards, from the empty board to well into the game,
+	 *  reached by random moves from a fixed seed, none with the game over. */
+	static Board[] create() {
+		java.util.Random random= new java.util.Random(2110);
+		Board[] boards= new Board[COUNT];
+		for (int i= 0; i < COUNT; ) {
+			Board board= new Board();
+			int plies= i * 30 / COUNT;
+			for (int p= 0; p < plies && board.hasConnectFour() == null; p++) {
+				Move[] moves= board.getPossibleMoves();
+				board= new Board(board, board.getPlayerToMove(), moves[random.nextInt(moves.length)]);
+			}
+			if (board.hasConnectFour() == null && !board.isFull())
+				boards[i++]= board;
+		}
+		return boards;
+	}
+}
@@ -0,0 +1,48 @@
+package connectfour;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmarks of growing a tree of States from the empty board to a depth
+ *  and of computing minimax over a tree that has been grown to it. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations= 3, time= 1)
+@Measurement(iterations= 5, time= 1)
+@Fork(1)
+@org.openjdk.jmh.annotations.State(Scope.Thread)
+public class StateBenchmark {
+	@Param({"2", "4", "6"})
+	public int depth;
+
+	private State tree; // the tree grown to depth, for computeMinimax
+
+	@Setup
+	public void setUp() {
+		tree= new State(Turn.FIRST, new Board(), Turn.FIRST);
+		tree.expandUpTo(depth);
+	}
+
+	@Benchmark
+	public State expandUpTo() {
+		State state= new State(Turn.FIRST, new Board(), Turn.FIRST);
+		state.expandUpTo(depth);
+		return state;
+	}
+
+	@Benchmark
+	public Move computeMinimax() {
+		tree.computeMinimax();
+		return tree.getPreferredMove();
+	}
+}
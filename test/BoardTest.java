@@ -0,0 +1,91 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/** Checks the position keys of Board, which opening books and tablebases
+ *  keep in files, on boards from random games and their mirror images. */
+public class BoardTest {
+	/** The number of random games whose boards are checked. */
+	private static final int GAMES= 200;
+
+	/** Decoding the position key of a board gives the board back, and boards
+	 *  have the same key if and only if they are equal. */
+	@Test
+	public void positionKeyRoundTrip() {
+		Random random= new Random(5);
+		Map<Long,Board> boards= new HashMap<Long,Board>();
+		for (int game= 0; game < GAMES; game++)
+			for (Board board : play(randomGame(random), false)) {
+				long key= board.getPositionKey();
+				assertTrue(key >= 0 && key < 1L << 49, board.toString());
+				assertEquals(board, Board.fromPositionKey(key));
+				Board other= boards.put(key, board);
+				if (other != null)
+					assertEquals(other, board);
+			}
+		assertEquals(boards.size(), boards.values().stream().distinct().count());
+	}
+
+	/** The mirror image of a board has the mirrored position key, and
+	 *  both have the same canonical key, which is one of their keys. */
+	@Test
+	public void mirrorHasSameCanonicalKey() {
+		for (int game= 0; game < GAMES; game++) {
+			int[] columns= randomGame(new Random(game));
+			Board[] boards= play(columns, false);
+			Board[] mirrors= play(columns, true);
+			for (int i= 0; i < boards.length; i++) {
+				long key= boards[i].getPositionKey();
+				long mirror= mirrors[i].getPositionKey();
+				assertEquals(mirror, Board.mirrorPositionKey(key), boards[i].toString());
+				assertEquals(key, Board.mirrorPositionKey(mirror), boards[i].toString());
+				assertEquals(boards[i].getCanonicalKey(), mirrors[i].getCanonicalKey(), boards[i].toString());
+				assertEquals(Math.min(key, mirror), boards[i].getCanonicalKey(), boards[i].toString());
+			}
+		}
+	}
+
+	/** A board that is not symmetric has a key different from its mirror image's. */
+	@Test
+	public void asymmetricBoardHasOtherMirrorKey() {
+		Board board= Board.fromMoves("0", "BOARD");
+		Board mirror= Board.fromMoves("6", "BOARD");
+		assertNotEquals(board.getPositionKey(), mirror.getPositionKey());
+		assertEquals(board.getCanonicalKey(), mirror.getCanonicalKey());
+		Board symmetric= Board.fromMoves("3", "BOARD");
+		assertEquals(symmetric.getPositionKey(), Board.mirrorPositionKey(symmetric.getPositionKey()));
+	}
+
+	/** Return the columns of the moves of a game of random moves from random,
+	 *  from the empty board to the end. */
+	private static int[] randomGame(Random random) {
+		int[] columns= new int[Board.NUM_ROWS * Board.NUM_COLS];
+		Board board= new Board();
+		int n= 0;
+		while (board.hasConnectFour() == null && !board.isFull()) {
+			Move[] moves= board.getPossibleMoves();
+			columns[n]= moves[random.nextInt(moves.length)].getColumn();
+			board= new Board(board, board.getPlayerToMove(), Move.of(columns[n++]));
+		}
+		return Arrays.copyOf(columns, n);
+	}
+
+	/** Return the boards from the empty board on when moves are played in
+	 *  columns, or in their mirror images if mirrored. */
+	private static Board[] play(int[] columns, boolean mirrored) {
+		Board[] boards= new Board[columns.length + 1];
+		boards[0]= new Board();
+		for (int i= 0; i < columns.length; i++) {
+			int column= mirrored ? Board.NUM_COLS - 1 - columns[i] : columns[i];
+			boards[i + 1]= new Board(boards[i], boards[i].getPlayerToMove(), Move.of(column));
+		}
+		return boards;
+	}
+}
@@ -0,0 +1,56 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+/** Checks move generation by counting the sequences of moves from boards
+ *  with Perft against counts known to be right. */
+public class PerftTest {
+	/** The counts for the empty board at depths 0 to 8 are 1, 7, 49, ..., 5673234. */
+	@Test
+	public void countsFromEmptyBoard() {
+		assertEquals(9, Perft.EMPTY_BOARD_COUNTS.length);
+		assertEquals(5673234, Perft.EMPTY_BOARD_COUNTS[8]);
+		for (int d= 0; d < Perft.EMPTY_BOARD_COUNTS.length; d++)
+			assertEquals(Perft.EMPTY_BOARD_COUNTS[d], Perft.count(new Board(), Turn.FIRST, d), "depth " + d);
+	}
+
+	/** Counting on several threads gives the same counts as on one. */
+	@Test
+	public void parallelCountsFromEmptyBoard() {
+		ForkJoinPool pool= new ForkJoinPool(2);
+		try {
+			for (int d= 0; d < Perft.EMPTY_BOARD_COUNTS.length; d++)
+				assertEquals(Perft.EMPTY_BOARD_COUNTS[d], Perft.count(new Board(), Turn.FIRST, d, pool), "depth " + d);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/** A sequence ends early when a column fills or the game is won. */
+	@Test
+	public void countsFromFullColumnAndWin() {
+		Board board= Board.fromMoves("333333", "BOARD");
+		assertEquals(Turn.FIRST, board.getPlayerToMove());
+		assertEquals(6, Perft.count(board, Turn.FIRST, 1));
+		assertEquals(36, Perft.count(board, Turn.FIRST, 2));
+
+		// FIRST wins with a fourth chip in column 0, after which there are no moves
+		board= Board.fromMoves("010101", "BOARD");
+		assertEquals(7, Perft.count(board, Turn.FIRST, 1));
+		assertEquals(6 * 7, Perft.count(board, Turn.FIRST, 2));
+	}
+
+	/** Board.fromMoves rejects anything that is not a sequence of possible moves. */
+	@Test
+	public void fromMovesRejectsImpossibleMoves() {
+		assertEquals(new Board(), Board.fromMoves("", "BOARD"));
+		for (String moves : new String[] {"7", "3x", "3333333", "01010100"}) {
+			IllegalArgumentException err= assertThrows(IllegalArgumentException.class,
+					() -> Board.fromMoves(moves, "ROOT"), moves);
+			assertEquals("ROOT must be a sequence of possible moves", err.getMessage());
+		}
+	}
+}
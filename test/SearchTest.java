@@ -0,0 +1,150 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/** Checks that Search, whatever it prunes, finds the value of plain minimax
+ *  (negamax without pruning) and a move that has that value. */
+public class SearchTest {
+	/** The greatest depth searched. */
+	private static final int MAX_DEPTH= 5;
+
+	/** A search without a table or move ordering returns the minimax value
+	 *  and the left-most move with that value. */
+	@Test
+	public void alphaBetaMatchesMinimax() {
+		for (Board board : positions()) {
+			Turn player= board.getPlayerToMove();
+			for (int depth= 1; depth <= MAX_DEPTH; depth++) {
+				int[] values= minimaxValues(board, player, depth, Evaluation.LINES);
+				Search search= new Search();
+				Move move= search.getBestMove(board, player, depth);
+				assertEquals(best(values), search.getValue(), board + "depth " + depth);
+				assertEquals(leftMost(values), move.getColumn(), board + "depth " + depth);
+			}
+		}
+	}
+
+	/** A search with a table returns the minimax value and a move with that
+	 *  value, also when the table holds the searches of smaller depths. */
+	@Test
+	public void tableMatchesMinimax() {
+		for (Board board : positions()) {
+			Turn player= board.getPlayerToMove();
+			Search search= new Search(new TranspositionTable(1), new MoveOrder(0));
+			for (int depth= 1; depth <= MAX_DEPTH; depth++) {
+				int[] values= minimaxValues(board, player, depth, Evaluation.LINES);
+				Move move= search.getBestMove(board, player, depth);
+				assertEquals(best(values), search.getValue(), board + "depth " + depth);
+				assertEquals(best(values), values[move.getColumn()], board + "depth " + depth);
+			}
+		}
+	}
+
+	/** Every combination of move-ordering heuristics gives the minimax value
+	 *  and a move with that value, also with the killer moves and history
+	 *  left by the searches of other boards. */
+	@Test
+	public void orderingDoesNotChangeValue() {
+		for (int heuristics= 0; heuristics <= MoveOrder.ALL; heuristics++) {
+			MoveOrder order= new MoveOrder(heuristics);
+			for (Board board : positions()) {
+				Turn player= board.getPlayerToMove();
+				int[] values= minimaxValues(board, player, MAX_DEPTH, Evaluation.LINES);
+				for (Search search : new Search[] {new Search(null, order),
+						new Search(new TranspositionTable(1), order)}) {
+					Move move= search.getBestMove(board, player, MAX_DEPTH);
+					assertEquals(best(values), search.getValue(), board + "heuristics " + heuristics);
+					assertEquals(best(values), values[move.getColumn()], board + "heuristics " + heuristics);
+				}
+			}
+		}
+	}
+
+	/** PVS and MTD(f), which deepen iteratively with aspiration and null
+	 *  windows, give the minimax value and a move with that value, with
+	 *  either evaluation and with and without a table. */
+	@Test
+	public void modesMatchMinimax() {
+		for (Evaluation evaluation : Evaluation.values())
+			for (Search.Mode mode : Search.Mode.values())
+				for (Board board : positions()) {
+					Turn player= board.getPlayerToMove();
+					int[] values= minimaxValues(board, player, MAX_DEPTH, evaluation);
+					for (TranspositionTable table : new TranspositionTable[] {null, new TranspositionTable(1)}) {
+						Search search= new Search(table, new MoveOrder(MoveOrder.ALL), 1, evaluation, mode);
+						Move move= search.getBestMove(board, player, MAX_DEPTH);
+						String message= board.toString() + mode + " " + evaluation + (table == null ? "" : " with table");
+						assertEquals(best(values), search.getValue(), message);
+						assertEquals(best(values), values[move.getColumn()], message);
+					}
+				}
+	}
+
+	/** Return boards from random games that are not over, from the empty
+	 *  board to well into the game, the same on every run. */
+	static List<Board> positions() {
+		Random random= new Random(6);
+		List<Board> boards= new ArrayList<Board>();
+		boards.add(new Board());
+		while (boards.size() < 12) {
+			Board board= new Board();
+			int chips= random.nextInt(24);
+			while (board.getChipCount() < chips && board.hasConnectFour() == null) {
+				Move[] moves= board.getPossibleMoves();
+				board= new Board(board, board.getPlayerToMove(), moves[random.nextInt(moves.length)]);
+			}
+			if (board.hasConnectFour() == null)
+				boards.add(board);
+		}
+		return boards;
+	}
+
+	/** Return the minimax values for player of the moves on board, indexed
+	 *  by column, searching depth moves ahead (counting the move) and valuing
+	 *  the boards at that depth with evaluation, or Integer.MIN_VALUE for
+	 *  full columns. Precondition: depth >= 1. */
+	static int[] minimaxValues(Board board, Turn player, int depth, Evaluation evaluation) {
+		int[] values= new int[Board.NUM_COLS];
+		for (int c= 0; c < Board.NUM_COLS; c++)
+			values[c]= board.columnIsFull(c) ? Integer.MIN_VALUE
+					: -negamax(new Board(board, player, Move.of(c)), player.getNext(), depth - 1, 1, evaluation);
+		return values;
+	}
+
+	/** Return the value of board for player, the player to move, searching
+	 *  depth moves ahead, as Search values it, but without pruning.
+	 *  board was reached ply moves into the search. */
+	private static int negamax(Board board, Turn player, int depth, int ply, Evaluation evaluation) {
+		if (board.hasConnectFour() != null)
+			return -(Search.WIN - ply);
+		if (board.isFull())
+			return 0;
+		if (depth == 0)
+			return evaluation.evaluate(board, player);
+		int best= Integer.MIN_VALUE;
+		for (Move move : board.getPossibleMoves())
+			best= Math.max(best, -negamax(new Board(board, player, move), player.getNext(), depth - 1, ply + 1, evaluation));
+		return best;
+	}
+
+	/** Return the greatest of values. */
+	static int best(int[] values) {
+		int best= Integer.MIN_VALUE;
+		for (int v : values)
+			best= Math.max(best, v);
+		return best;
+	}
+
+	/** Return the left-most column with the greatest of values. */
+	static int leftMost(int[] values) {
+		int best= 0;
+		for (int c= 1; c < values.length; c++)
+			if (values[c] > values[best])
+				best= c;
+		return best;
+	}
+}
@@ -0,0 +1,76 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/** Checks the exact scores of Solver against a brute-force search of every
+ *  way that late games can end. */
+public class SolverTest {
+	/** The number of locations on a board. */
+	private static final int SIZE= Board.NUM_ROWS * Board.NUM_COLS;
+
+	/** The greatest number of empty locations of the boards checked. */
+	private static final int MAX_EMPTIES= 10;
+
+	/** The score, the score of every move, and the move of Solver are those
+	 *  of a search without pruning, on boards from random games. */
+	@Test
+	public void scoresMatchBruteForce() {
+		Random random= new Random(15);
+		Solver solver= new Solver(16);
+		int checked= 0;
+		while (checked < 100) {
+			Board board= lateBoard(random);
+			if (board == null)
+				continue;
+			int[] scores= solver.analyze(board);
+			int best= Integer.MIN_VALUE;
+			for (int c= 0; c < Board.NUM_COLS; c++) {
+				int expected= board.columnIsFull(c) ? Integer.MIN_VALUE : score(board, c);
+				assertEquals(expected, scores[c], board + "column " + c);
+				best= Math.max(best, expected);
+			}
+			assertEquals(best, solver.solve(board), board.toString());
+			Move move= new Solver(board.getPlayerToMove(), "16").getMove(board);
+			assertEquals(best, scores[move.getColumn()], board.toString());
+			checked++;
+		}
+	}
+
+	/** Return a board with at most MAX_EMPTIES empty locations reached by
+	 *  random moves that do not win, or null if a player has only winning
+	 *  moves first. */
+	private static Board lateBoard(Random random) {
+		Board board= new Board();
+		int chips= SIZE - 1 - random.nextInt(MAX_EMPTIES);
+		while (board.getChipCount() < chips) {
+			Move[] moves= board.getPossibleMoves();
+			Board next= null;
+			for (int i= random.nextInt(moves.length), n= 0; n < moves.length && next == null; n++) {
+				next= new Board(board, board.getPlayerToMove(), moves[(i + n) % moves.length]);
+				if (next.hasConnectFour() != null)
+					next= null;
+			}
+			if (next == null)
+				return null;
+			board= next;
+		}
+		return board;
+	}
+
+	/** Return the score, as Solver defines it, of board for the player to
+	 *  move if they put a chip in column column, by searching every way the
+	 *  game can go on. Precondition: column is not full. */
+	private static int score(Board board, int column) {
+		Board child= new Board(board, board.getPlayerToMove(), Move.of(column));
+		if (child.hasConnectFour() != null)
+			return (SIZE + 1 - board.getChipCount()) / 2;
+		if (child.isFull())
+			return 0;
+		int best= Integer.MIN_VALUE;
+		for (Move move : child.getPossibleMoves())
+			best= Math.max(best, score(child, move.getColumn()));
+		return -best;
+	}
+}
@@ -0,0 +1,108 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Checks the scores of a small generated tablebase against Solver, on boards
+ *  reached from its root and on boards from other games. */
+public class TablebaseTest {
+	/** The moves to the root of the tablebase, and its greatest number of empty locations. */
+	private static final String ROOT= "4602352661243022126655";
+	private static final int EMPTIES= 10;
+
+	@TempDir
+	static Path directory;
+
+	private static Tablebase tablebase;
+	private static Solver solver;
+
+	@BeforeAll
+	public static void generate() throws IOException {
+		Path file= directory.resolve("test.tb");
+		Tablebase.main(new String[] {ROOT, "" + EMPTIES, file.toString(), "threads:2"});
+		tablebase= new Tablebase(file.toString());
+		solver= new Solver(16);
+	}
+
+	@Test
+	public void header() {
+		assertEquals(Board.fromMoves(ROOT, "ROOT"), tablebase.getRoot());
+		assertEquals(EMPTIES, tablebase.getEmpties());
+		assertTrue(tablebase.size() > 0);
+	}
+
+	/** Every board reached from the root, and its mirror image, has the score
+	 *  that Solver finds, and the move played is one with that score. */
+	@Test
+	public void reachableBoards() {
+		Random random= new Random(1);
+		int probed= 0;
+		for (int game= 0; game < 200; game++) {
+			Board board= playOut(Board.fromMoves(ROOT, "ROOT"), random);
+			if (board == null)
+				continue;
+			int score= solver.solve(board);
+			assertEquals(score, tablebase.probe(board), board.toString());
+			Board mirror= Board.fromPositionKey(Board.mirrorPositionKey(board.getPositionKey()));
+			assertEquals(score, tablebase.probe(mirror), mirror.toString());
+			Move move= tablebase.getMove(board);
+			assertNotNull(move);
+			assertEquals(score, solver.analyze(board)[move.getColumn()], board.toString());
+			probed++;
+		}
+		assertTrue(probed > 100);
+	}
+
+	/** A board that was not reached from the root is not given a score. */
+	@Test
+	public void unreachableBoards() {
+		Random random= new Random(2);
+		Board root= Board.fromMoves(ROOT, "ROOT");
+		int probed= 0;
+		for (int game= 0; game < 20000; game++) {
+			Board board= playOut(new Board(), random);
+			if (board == null || (root.getChips(Turn.FIRST) & ~board.getChips(Turn.FIRST)) == 0
+					&& (root.getChips(Turn.SECOND) & ~board.getChips(Turn.SECOND)) == 0)
+				continue;
+			assertEquals(Tablebase.UNKNOWN, tablebase.probe(board), board.toString());
+			probed++;
+		}
+		assertTrue(probed > 100);
+	}
+
+	@Test
+	public void rejectsOtherFiles() throws IOException {
+		Path file= directory.resolve("other");
+		Files.write(file, new byte[64]);
+		assertThrows(IOException.class, () -> new Tablebase(file.toString()));
+	}
+
+	/** Return the board after random moves from board, none of them winning,
+	 *  that has a random number of at most EMPTIES empty locations, or null
+	 *  if a player has only winning moves first. */
+	private static Board playOut(Board board, Random random) {
+		int chips= Board.NUM_ROWS * Board.NUM_COLS - 1 - random.nextInt(EMPTIES);
+		while (board.getChipCount() < chips) {
+			Move[] moves= board.getPossibleMoves();
+			Board next= null;
+			for (int i= random.nextInt(moves.length), n= 0; n < moves.length && next == null; n++) {
+				next= new Board(board, board.getPlayerToMove(), moves[(i + n) % moves.length]);
+				if (next.hasConnectFour() != null)
+					next= null;
+			}
+			if (next == null)
+				return null;
+			board= next;
+		}
+		return board;
+	}
+}